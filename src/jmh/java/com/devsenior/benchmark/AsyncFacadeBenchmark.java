@@ -0,0 +1,88 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.service.BookService;
+import com.devsenior.service.LibraryAsyncService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+/*
+ * Rafagas de CALLERS llamadas concurrentes a la fachada asincrona: cada invocacion
+ * lanza todas las llamadas y espera a que terminen, asi que el resultado es el costo
+ * por llamada con CALLERS peticiones en vuelo a la vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncFacadeBenchmark {
+
+    private static final int CALLERS = 10_000;
+
+    @Param({ "64", "1024" })
+    public int maxConcurrent;
+
+    private LibraryAsyncService async;
+    private String[] isbns;
+    private String[] userIds;
+
+    @Setup
+    public void setup() {
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        isbns = Fixtures.isbns(CALLERS);
+        userIds = Fixtures.userIds(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i);
+            userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+        async = new LibraryAsyncService(bookService, userService, loanService, maxConcurrent, CALLERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        async.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void lookups() {
+        var futures = new CompletableFuture<?>[CALLERS];
+        for (int i = 0; i < CALLERS; i++) {
+            futures[i] = async.getBookByIsbn(isbns[i]);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    // Cada llamador presta su libro y lo devuelve al terminar el prestamo
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void loanCycle() {
+        var futures = new CompletableFuture<?>[CALLERS];
+        for (int i = 0; i < CALLERS; i++) {
+            var id = userIds[i];
+            var isbn = isbns[i];
+            futures[i] = async.addLoan(id, isbn).thenCompose(done -> async.returnBook(id, isbn));
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,73 @@
+package com.devsenior.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BookSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private BookService service;
+    private String[] words;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = Integer.toString(i * 7919 + 100_000, 36);
+        }
+
+        service = new BookService();
+        var isbns = Fixtures.isbns(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            var title = words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)];
+            var author = words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)];
+            service.addBook(isbns[i], title, author);
+        }
+    }
+
+    @Benchmark
+    public List<Book> searchWord() {
+        return service.searchBooks(words[ThreadLocalRandom.current().nextInt(VOCABULARY)], 20);
+    }
+
+    @Benchmark
+    public List<Book> searchTwoWordsWithPrefix() {
+        var random = ThreadLocalRandom.current();
+        var prefix = words[random.nextInt(VOCABULARY)];
+        return service.searchBooks(words[random.nextInt(VOCABULARY)] + " " + prefix.substring(0, 3), 20);
+    }
+
+    // Un prefijo de una letra abarca miles de palabras y una fraccion grande del catalogo
+    @Benchmark
+    public List<Book> searchCommonPrefix() {
+        return service.searchBooks(words[ThreadLocalRandom.current().nextInt(VOCABULARY)].substring(0, 1), 20);
+    }
+}
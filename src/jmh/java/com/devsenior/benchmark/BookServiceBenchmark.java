@@ -0,0 +1,57 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BookServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    private BookService service;
+    private String[] isbns;
+
+    @Setup
+    public void setup() {
+        service = new BookService();
+        isbns = Fixtures.isbns(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            service.addBook(isbns[i], "Libro " + i, "Autor " + i % 1000);
+        }
+    }
+
+    @Benchmark
+    public Book getBookByIsbn() throws NotFoundException {
+        return service.getBookByIsbn(isbns[ThreadLocalRandom.current().nextInt(catalogSize)]);
+    }
+
+    // Se vuelve a agregar el libro para que el catalogo no cambie de tamaño entre invocaciones
+    @Benchmark
+    public void deleteBook() throws NotFoundException {
+        var isbn = isbns[ThreadLocalRandom.current().nextInt(catalogSize)];
+        service.deleteBook(isbn);
+        service.addBook(isbn, "Libro", "Autor");
+    }
+}
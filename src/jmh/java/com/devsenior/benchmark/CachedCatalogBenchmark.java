@@ -0,0 +1,91 @@
+package com.devsenior.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.model.Book;
+import com.devsenior.repository.BookRepository;
+import com.devsenior.repository.CachingBookRepository;
+import com.devsenior.repository.FileBookRepository;
+
+/*
+ * Lectura por isbn sobre el catalogo en archivo, directo y con el cache W-TinyLFU
+ * delante (5% del catalogo). Las consultas siguen una distribucion sesgada: la mayoria
+ * cae en pocos libros, con un 10% de isbn inexistentes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachedCatalogBenchmark {
+
+    private static final int CATALOG_SIZE = 200_000;
+    private static final int QUERIES = 1 << 16;
+
+    @Param({ "false", "true" })
+    public boolean cached;
+
+    private Path file;
+    private FileBookRepository storage;
+    private BookRepository repository;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("catalogo", ".dat");
+        storage = FileBookRepository.open(file);
+        var isbns = Fixtures.isbns(CATALOG_SIZE);
+        var books = new ArrayList<Book>(CATALOG_SIZE);
+        for (var isbn : isbns) {
+            books.add(new Book(isbn, "Titulo " + isbn, "Autor " + isbn));
+        }
+        storage.addAll(books);
+        repository = cached ? new CachingBookRepository(storage, CATALOG_SIZE / 20) : storage;
+
+        var random = new Random(42);
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            if (random.nextInt(10) == 0) {
+                queries[i] = "falta-" + random.nextInt(1_000);
+            } else {
+                // Aproximadamente Zipf: el indice se concentra cerca de 0
+                var skewed = Math.pow(random.nextDouble(), 4);
+                queries[i] = isbns[(int) (skewed * CATALOG_SIZE)];
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (repository instanceof CachingBookRepository caching) {
+            System.out.printf("%nacierto del cache: %.1f%%%n", caching.getCacheStats().getHitRate() * 100);
+        }
+        storage.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Book getByIsbn() {
+        return repository.get(queries[next++ & (QUERIES - 1)]);
+    }
+}
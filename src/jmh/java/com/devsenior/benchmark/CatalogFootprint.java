@@ -0,0 +1,89 @@
+package com.devsenior.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+import com.devsenior.model.Book;
+import com.devsenior.repository.CompactBookRepository;
+import com.devsenior.repository.InMemoryBookRepository;
+import com.devsenior.service.BookService;
+
+/*
+ * Compara la memoria retenida por el catalogo con ArrayList<Book> (version original),
+ * InMemoryBookRepository y CompactBookRepository. Los titulos y autores se comparten
+ * entre las mediciones, asi que la diferencia es el costo de la estructura y del isbn.
+ *
+ * Tambien se mide BookService completo sobre cada repositorio, con sus indices de
+ * busqueda y de paginas y el registro de cambios, que es lo que de verdad retiene el
+ * proceso: medir solo el repositorio esconderia lo que agregan los indices.
+ *
+ *   mvn -B -Pjmh -DskipTests test-compile
+ *   java -Xmx8g -cp target/classes:target/test-classes com.devsenior.benchmark.CatalogFootprint 10000000
+ */
+public class CatalogFootprint {
+
+    public static void main(String[] args) {
+        var books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        var titles = new String[books];
+        var authors = new String[books];
+        for (int i = 0; i < books; i++) {
+            titles[i] = "Libro " + i;
+            authors[i] = "Autor " + i % 1000;
+        }
+
+        report("ArrayList<Book>", books, count -> {
+            var list = new ArrayList<Book>();
+            for (int i = 0; i < count; i++) {
+                list.add(new Book(Fixtures.isbn(i), titles[i], authors[i]));
+            }
+            return list;
+        });
+        report("InMemoryBookRepository", books, count -> {
+            var repository = new InMemoryBookRepository();
+            for (int i = 0; i < count; i++) {
+                repository.add(new Book(Fixtures.isbn(i), titles[i], authors[i]));
+            }
+            return repository;
+        });
+        report("CompactBookRepository", books, count -> {
+            var repository = new CompactBookRepository();
+            for (int i = 0; i < count; i++) {
+                repository.add(new Book(Fixtures.isbn(i), titles[i], authors[i]));
+            }
+            return repository;
+        });
+        report("BookService + InMemory", books, count -> service(new BookService(), count, titles, authors));
+        report("BookService + Compact", books,
+                count -> service(new BookService(new CompactBookRepository()), count, titles, authors));
+        report("BookService + Compact sin indices", books,
+                count -> service(new BookService(new CompactBookRepository(), false), count, titles, authors));
+    }
+
+    private static BookService service(BookService service, int count, String[] titles, String[] authors) {
+        for (int i = 0; i < count; i++) {
+            service.addBook(Fixtures.isbn(i), titles[i], authors[i]);
+        }
+        return service;
+    }
+
+    private static void report(String name, int books, IntFunction<Object> builder) {
+        var before = usedHeap();
+        var catalog = builder.apply(books);
+        var after = usedHeap();
+        System.out.printf("%-34s %,d libros: %,d bytes (%.1f bytes/libro)%n",
+                name, books, after - before, (after - before) / (double) books);
+        // Mantiene vivo el catalogo hasta despues de medir
+        if (catalog.hashCode() == 42) {
+            System.out.print("");
+        }
+    }
+
+    private static long usedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
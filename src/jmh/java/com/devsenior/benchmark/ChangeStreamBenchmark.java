@@ -0,0 +1,100 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.events.BackpressurePolicy;
+import com.devsenior.events.ChangeHandler;
+import com.devsenior.events.ChangeStream;
+import com.devsenior.events.EntityType;
+import com.devsenior.events.Subscription;
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+import com.devsenior.snapshot.ChangeType;
+
+/*
+ * Costo de publicar en el flujo de cambios: publicar solo, y un ciclo prestamo +
+ * devolucion con y sin flujo. Dos suscriptores se drenan en la misma invocacion para
+ * que el anillo nunca se llene.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeStreamBenchmark {
+
+    private static final int CATALOG_SIZE = 1_024;
+
+    @Param({ "false", "true" })
+    public boolean streamEnabled;
+
+    private ChangeStream stream;
+    private Subscription search;
+    private Subscription warehouse;
+    private LoanService loanService;
+    private String[] isbns;
+    private String[] userIds;
+    private int next;
+    private long consumed;
+    private ChangeHandler handler = (event, endOfBatch) -> consumed += event.getSequence();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        stream = new ChangeStream(1 << 14, BackpressurePolicy.DROP);
+        search = stream.subscribe();
+        warehouse = stream.subscribe();
+        var bookService = new BookService();
+        var userService = new UserService();
+        loanService = new LoanService(bookService, userService);
+        if (streamEnabled) {
+            loanService.setChangeStream(stream);
+        }
+        isbns = Fixtures.isbns(CATALOG_SIZE);
+        userIds = Fixtures.userIds(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i);
+            userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+    }
+
+    @Benchmark
+    public boolean publish() {
+        var published = stream.publish(EntityType.LOAN, ChangeType.ADDED, isbns[next], userIds[next], 19_000);
+        next = (next + 1) & (CATALOG_SIZE - 1);
+        drain();
+        return published;
+    }
+
+    @Benchmark
+    public void loanCycle() throws NotFoundException {
+        var i = next;
+        next = (next + 1) & (CATALOG_SIZE - 1);
+        loanService.addLoan(userIds[i], isbns[i]);
+        loanService.returnBook(userIds[i], isbns[i]);
+        drain();
+    }
+
+    // Se drena cada cierto numero de operaciones, como haria un consumidor por lotes
+    private void drain() {
+        if ((next & 255) == 0) {
+            search.drain(handler, 1_024);
+            warehouse.drain(handler, 1_024);
+        }
+    }
+}
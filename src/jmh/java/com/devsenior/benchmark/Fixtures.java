@@ -0,0 +1,38 @@
+package com.devsenior.benchmark;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // ISBN-13 con prefijo 978 y digito de control valido
+    static String isbn(int index) {
+        var body = "978" + String.format("%09d", index);
+        var sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    static String userId(int index) {
+        return "user-" + index;
+    }
+
+    // Las claves se generan antes de medir para no contar su construccion
+    static String[] isbns(int count) {
+        var isbns = new String[count];
+        for (int i = 0; i < count; i++) {
+            isbns[i] = isbn(i);
+        }
+        return isbns;
+    }
+
+    static String[] userIds(int count) {
+        var ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = userId(i);
+        }
+        return ids;
+    }
+}
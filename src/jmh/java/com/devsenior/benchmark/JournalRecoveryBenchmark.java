@@ -0,0 +1,86 @@
+package com.devsenior.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.persistence.Journal;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+// Tiempo de recuperar una bitacora de N registros (prestamos y devoluciones sobre un catalogo fijo)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class JournalRecoveryBenchmark {
+
+    private static final int BOOKS = 100_000;
+    private static final int USERS = 10_000;
+
+    @Param({"1000000", "10000000", "50000000"})
+    private int entries;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, NotFoundException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        var isbns = Fixtures.isbns(BOOKS);
+        var userIds = Fixtures.userIds(USERS);
+
+        try (var journal = Journal.open(directory, 10_000, bookService, userService, loanService)) {
+            for (int i = 0; i < BOOKS; i++) {
+                bookService.addBook(isbns[i], "Libro " + i, "Autor " + i % 1000);
+            }
+            for (int i = 0; i < USERS; i++) {
+                userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+            }
+            for (int i = 0; i < (entries - BOOKS - USERS) / 2; i++) {
+                var userId = userIds[i % USERS];
+                var isbn = isbns[i % BOOKS];
+                loanService.addLoan(userId, isbn);
+                loanService.returnBook(userId, isbn);
+            }
+        }
+    }
+
+    @Benchmark
+    public LoanService recover() throws IOException {
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        Journal.open(directory, 10_000, bookService, userService, loanService).close();
+        return loanService;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
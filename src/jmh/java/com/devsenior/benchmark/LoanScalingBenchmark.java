@@ -0,0 +1,90 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+/*
+ * Escalamiento de LoanService cuando cada hilo presta y devuelve su propio libro: el
+ * isbn y el usuario salen del indice del hilo, asi que ningun par de hilos comparte
+ * entrada. Se compara oneThread contra allThreads (un hilo por nucleo); con un solo
+ * nucleo las dos cifras coinciden.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanScalingBenchmark {
+
+    private static final int MAX_THREADS = 1_024;
+
+    private LoanService service;
+    private String[] isbns;
+    private String[] userIds;
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        var bookService = new BookService();
+        var userService = new UserService();
+        service = new LoanService(bookService, userService);
+        isbns = Fixtures.isbns(MAX_THREADS);
+        userIds = Fixtures.userIds(MAX_THREADS);
+        for (int i = 0; i < MAX_THREADS; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i);
+            userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+
+        private String isbn;
+        private String userId;
+
+        @Setup
+        public void setup(LoanScalingBenchmark benchmark) {
+            var index = benchmark.nextThread.getAndIncrement();
+            if (index >= MAX_THREADS) {
+                throw new IllegalStateException("El benchmark admite hasta " + MAX_THREADS + " hilos");
+            }
+            isbn = benchmark.isbns[index];
+            userId = benchmark.userIds[index];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneThread(Worker worker) throws NotFoundException {
+        loanAndReturn(worker);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void allThreads(Worker worker) throws NotFoundException {
+        loanAndReturn(worker);
+    }
+
+    private void loanAndReturn(Worker worker) throws NotFoundException {
+        service.addLoan(worker.userId, worker.isbn);
+        service.returnBook(worker.userId, worker.isbn);
+    }
+}
@@ -0,0 +1,140 @@
+package com.devsenior.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Loan;
+import com.devsenior.repository.LoanHistory;
+import com.devsenior.repository.LoanRepository;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoanServiceBenchmark {
+
+    // Un usuario por cada USERS_PER_BOOK libros del catalogo
+    private static final int USERS_PER_BOOK = 10;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    // Porcentaje del catalogo que esta prestado al iniciar
+    @Param({"0.1", "0.5", "0.9"})
+    private double activeLoanRatio;
+
+    private LoanService service;
+    private ResettableHistory history;
+    private String[] isbns;
+    private String[] userIds;
+    private int userCount;
+    private int lentBooks;
+
+    @Setup
+    public void setup() throws NotFoundException {
+        var bookService = new BookService();
+        var userService = new UserService();
+        history = new ResettableHistory();
+        service = new LoanService(bookService, userService, history);
+
+        userCount = Math.max(1, catalogSize / USERS_PER_BOOK);
+        isbns = Fixtures.isbns(catalogSize);
+        userIds = Fixtures.userIds(userCount);
+        for (int i = 0; i < catalogSize; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i % 1000);
+        }
+        for (int i = 0; i < userCount; i++) {
+            userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+
+        // Los primeros libros quedan prestados, el resto del catalogo esta libre
+        lentBooks = (int) (catalogSize * activeLoanRatio);
+        for (int i = 0; i < lentBooks; i++) {
+            service.addLoan(userIds[i % userCount], isbns[i]);
+        }
+    }
+
+    // Cada devolucion agrega un prestamo al historial; se vacia en cada iteracion para que
+    // no crezca durante toda la medicion. Los prestamos del setup siguen activos, asi que
+    // el historial empieza vacio
+    @Setup(Level.Iteration)
+    public void resetHistory() {
+        history.reset();
+    }
+
+    // Un prestamo seguido de su devolucion deja igual los prestamos activos; lo unico que
+    // crece es el historial, que se vacia en cada iteracion
+    @Benchmark
+    public void addLoanAndReturnBook() throws NotFoundException {
+        var random = ThreadLocalRandom.current();
+        var isbn = isbns[lentBooks + random.nextInt(catalogSize - lentBooks)];
+        var userId = userIds[random.nextInt(userCount)];
+        service.addLoan(userId, isbn);
+        service.returnBook(userId, isbn);
+    }
+
+    @Benchmark
+    public boolean addLoanOfLentBook() {
+        var random = ThreadLocalRandom.current();
+        try {
+            service.addLoan(userIds[random.nextInt(userCount)], isbns[random.nextInt(Math.max(1, lentBooks))]);
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public List<Loan> getLoansByUserId() throws NotFoundException {
+        return service.getLoansByUserId(userIds[ThreadLocalRandom.current().nextInt(Math.min(userCount, Math.max(1, lentBooks)))]);
+    }
+
+    private static final class ResettableHistory implements LoanRepository {
+
+        private volatile LoanHistory current = new LoanHistory();
+
+        void reset() {
+            current = new LoanHistory();
+        }
+
+        @Override
+        public void add(Loan loan) {
+            current.add(loan);
+        }
+
+        @Override
+        public List<Loan> findByUserId(String id) {
+            return current.findByUserId(id);
+        }
+
+        @Override
+        public List<Loan> findAll() {
+            return current.findAll();
+        }
+
+        @Override
+        public int size() {
+            return current.size();
+        }
+    }
+}
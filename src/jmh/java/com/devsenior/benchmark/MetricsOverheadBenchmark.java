@@ -0,0 +1,54 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.metrics.LibraryMetrics;
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+
+// Costo de las metricas sobre la consulta mas barata: con y sin registro de tiempos
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({ "false", "true" })
+    public boolean enabled;
+
+    private BookService bookService;
+    private String[] isbns;
+
+    @Setup
+    public void setup() {
+        bookService = new BookService();
+        bookService.setMetrics(new LibraryMetrics(enabled));
+        isbns = Fixtures.isbns(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i);
+        }
+    }
+
+    @Benchmark
+    public Book getBookByIsbn() throws NotFoundException {
+        return bookService.getBookByIsbn(isbns[ThreadLocalRandom.current().nextInt(CATALOG_SIZE)]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.devsenior.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+import com.devsenior.service.UserService;
+
+/*
+ * Costo de no encontrar un libro o usuario: la excepcion anterior (con traza de pila y
+ * mensaje concatenado), la excepcion actual y las consultas con Optional.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MissPathBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private BookService bookService;
+    private UserService userService;
+    private String[] missingKeys;
+
+    // Equivalente a la NotFoundException original, como linea base
+    static class LegacyNotFoundException extends Exception {
+        LegacyNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        bookService = new BookService();
+        userService = new UserService();
+        var isbns = Fixtures.isbns(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            bookService.addBook(isbns[i], "Libro " + i, "Autor " + i);
+            userService.addUser(Fixtures.userId(i), "Usuario " + i, "user" + i + "@email.com");
+        }
+        missingKeys = new String[1024];
+        for (int i = 0; i < missingKeys.length; i++) {
+            missingKeys[i] = "missing-" + i;
+        }
+    }
+
+    @Benchmark
+    public Object legacyExceptionMiss() {
+        var isbn = missingKey();
+        try {
+            var book = bookService.findBookByIsbn(isbn);
+            if (book.isEmpty()) {
+                throw new LegacyNotFoundException("No fue encontrado el libro con isbn: " + isbn);
+            }
+            return book.get();
+        } catch (LegacyNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object getBookByIsbnMiss() {
+        try {
+            return bookService.getBookByIsbn(missingKey());
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Optional<Book> findBookByIsbnMiss() {
+        return bookService.findBookByIsbn(missingKey());
+    }
+
+    @Benchmark
+    public Object getUserByIdMiss() {
+        try {
+            return userService.getUserById(missingKey());
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean findUserByIdMiss() {
+        return userService.findUserById(missingKey()).isPresent();
+    }
+
+    private String missingKey() {
+        return missingKeys[ThreadLocalRandom.current().nextInt(missingKeys.length)];
+    }
+}
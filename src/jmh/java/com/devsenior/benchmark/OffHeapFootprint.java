@@ -0,0 +1,60 @@
+package com.devsenior.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import com.devsenior.model.Book;
+import com.devsenior.repository.BookRepository;
+import com.devsenior.repository.InMemoryBookRepository;
+import com.devsenior.repository.OffHeapBookRepository;
+
+/*
+ * Heap retenido y pausas de GC completas con el catalogo en el heap
+ * (InMemoryBookRepository) o fuera de el (OffHeapBookRepository). Cada almacenamiento
+ * se mide en su propio proceso para que no se mezclen los heaps:
+ *
+ *   mvn -B -Pjmh -DskipTests test-compile
+ *   java -Xmx12g -cp target/classes:target/test-classes com.devsenior.benchmark.OffHeapFootprint heap 10000000
+ *   java -Xmx12g -XX:MaxDirectMemorySize=4g -cp target/classes:target/test-classes com.devsenior.benchmark.OffHeapFootprint offheap 10000000
+ */
+public class OffHeapFootprint {
+
+    public static void main(String[] args) {
+        var offHeap = args.length > 0 && args[0].equals("offheap");
+        var books = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        BookRepository repository = offHeap ? new OffHeapBookRepository(books) : new InMemoryBookRepository();
+        var before = usedHeap();
+        for (int i = 0; i < books; i++) {
+            repository.add(new Book(Fixtures.isbn(i), "Libro " + i, "Autor " + i % 1000));
+        }
+        var after = usedHeap();
+
+        // Pausa de un GC completo con el catalogo vivo
+        var pauses = new long[5];
+        for (int i = 0; i < pauses.length; i++) {
+            var start = System.nanoTime();
+            System.gc();
+            pauses[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(pauses);
+
+        System.out.printf("%-24s %,d libros: heap %,d bytes (%.1f bytes/libro)", repository.getClass().getSimpleName(),
+                books, after - before, (after - before) / (double) books);
+        if (repository instanceof OffHeapBookRepository store) {
+            System.out.printf(", fuera del heap %,d bytes", store.getOffHeapBytes());
+        }
+        System.out.printf(", GC completo mediana %d ms%n", pauses[pauses.length / 2]);
+        if (repository.size() != books) {
+            throw new IllegalStateException("Faltan libros");
+        }
+    }
+
+    private static long usedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,84 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.engine.ShardedLibrary;
+import com.devsenior.service.UserService;
+
+/*
+ * Escalamiento con el numero de particiones: 4 hilos envian rafagas de prestamos y
+ * devoluciones sobre isbns al azar y esperan las respuestas. Con un solo nucleo las
+ * particiones no pueden correr en paralelo; el escalamiento se ve hasta el numero de
+ * nucleos disponibles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ShardedLibraryBenchmark {
+
+    private static final int CATALOG_SIZE = 65_536;
+    private static final int BURST = 256;
+
+    @Param({ "1", "2", "4", "8" })
+    public int shards;
+
+    private ShardedLibrary library;
+    private String[] isbns;
+    private String[] userIds;
+
+    @Setup
+    public void setup() {
+        var userService = new UserService();
+        userIds = Fixtures.userIds(1_024);
+        for (int i = 0; i < userIds.length; i++) {
+            userService.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+        library = new ShardedLibrary(shards, userService);
+        isbns = Fixtures.isbns(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            library.addBook(isbns[i], "Libro " + i, "Autor " + i);
+        }
+        library.countActiveLoans().join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        library.close();
+    }
+
+    // Cada operacion es un prestamo seguido de su devolucion en la misma particion
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void loanCycles() {
+        var random = ThreadLocalRandom.current();
+        var futures = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            var isbn = isbns[random.nextInt(CATALOG_SIZE)];
+            var id = userIds[random.nextInt(userIds.length)];
+            library.addLoan(id, isbn);
+            futures[i] = library.returnBook(id, isbn);
+        }
+        CompletableFuture.allOf(futures).exceptionally(error -> null).join();
+    }
+}
@@ -0,0 +1,55 @@
+package com.devsenior.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.User;
+import com.devsenior.service.UserService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int userCount;
+
+    private UserService service;
+    private String[] userIds;
+
+    @Setup
+    public void setup() {
+        service = new UserService();
+        userIds = Fixtures.userIds(userCount);
+        for (int i = 0; i < userCount; i++) {
+            service.addUser(userIds[i], "Usuario " + i, "user" + i + "@email.com");
+        }
+    }
+
+    @Benchmark
+    public User getUserById() throws NotFoundException {
+        return service.getUserById(userIds[ThreadLocalRandom.current().nextInt(userCount)]);
+    }
+
+    @Benchmark
+    public void updateUserEmail() throws NotFoundException {
+        var index = ThreadLocalRandom.current().nextInt(userCount);
+        service.updateUserEmail(userIds[index], "user" + index + "@email.com");
+    }
+}
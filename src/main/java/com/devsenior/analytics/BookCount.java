@@ -0,0 +1,38 @@
+package com.devsenior.analytics;
+
+// Cantidad de veces que se presto un libro
+public class BookCount implements Comparable<BookCount> {
+
+    private String isbn;
+    private long count;
+
+    public BookCount(String isbn, long count) {
+        this.isbn = isbn;
+        this.count = count;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Mas prestados primero; a igual cantidad, por isbn
+    @Override
+    public int compareTo(BookCount other) {
+        var byCount = Long.compare(other.count, count);
+        return byCount != 0 ? byCount : isbn.compareTo(other.isbn);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof BookCount other && count == other.count && isbn.equals(other.isbn);
+    }
+
+    @Override
+    public int hashCode() {
+        return isbn.hashCode() * 31 + Long.hashCode(count);
+    }
+}
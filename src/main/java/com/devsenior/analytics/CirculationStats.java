@@ -0,0 +1,114 @@
+package com.devsenior.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.devsenior.model.Loan;
+import com.devsenior.service.LoanListener;
+
+/*
+ * Estadisticas de circulacion que se actualizan con cada prestamo y devolucion en vez
+ * de recorrer todos los prestamos en cada consulta. Se registra con
+ * loanService.addLoanListener(stats), antes de recuperar la bitacora para que tambien
+ * cuente los prestamos recuperados.
+ *
+ * Los libros mas prestados se mantienen exactos en un conjunto ordenado por cantidad:
+ * cada prestamo mueve su libro en O(log n) y leer los K primeros es O(K).
+ */
+public class CirculationStats implements LoanListener {
+
+    private Map<String, BookCount> bookCounts = new ConcurrentHashMap<>();
+    private NavigableSet<BookCount> ranking = new ConcurrentSkipListSet<>();
+    private NavigableMap<Long, LongAdder> loansPerDay = new ConcurrentSkipListMap<>();
+    private Map<String, LongAdder> loansPerUser = new ConcurrentHashMap<>();
+    private Map<String, LongAdder> activePerUser = new ConcurrentHashMap<>();
+    private LongAdder totalLoans = new LongAdder();
+    private LongAdder onLoan = new LongAdder();
+
+    @Override
+    public void loanStarted(Loan loan) {
+        // El calculo de la entrada bloquea solo ese isbn, asi el ranking no pierde saltos
+        bookCounts.compute(loan.getBook().getIsbn(), (isbn, previous) -> {
+            var next = new BookCount(isbn, previous == null ? 1 : previous.getCount() + 1);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(next);
+            return next;
+        });
+        loansPerDay.computeIfAbsent(loan.getLoanDate().toEpochDay(), day -> new LongAdder()).increment();
+        var userId = loan.getUser().getId();
+        loansPerUser.computeIfAbsent(userId, id -> new LongAdder()).increment();
+        activePerUser.computeIfAbsent(userId, id -> new LongAdder()).increment();
+        totalLoans.increment();
+        onLoan.increment();
+    }
+
+    @Override
+    public void loanFinished(Loan loan) {
+        var active = activePerUser.get(loan.getUser().getId());
+        if (active != null) {
+            active.decrement();
+        }
+        onLoan.decrement();
+    }
+
+    // Los k libros mas prestados, de mayor a menor
+    public List<BookCount> getTopBooks(int k) {
+        var top = new ArrayList<BookCount>(Math.min(k, 64));
+        for (var count : ranking) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(count);
+        }
+        return top;
+    }
+
+    public long getLoanCount(String isbn) {
+        var count = bookCounts.get(isbn);
+        return count == null ? 0 : count.getCount();
+    }
+
+    public long getLoansOn(LocalDate day) {
+        var count = loansPerDay.get(day.toEpochDay());
+        return count == null ? 0 : count.sum();
+    }
+
+    // Prestamos por dia entre las dos fechas (incluidas); los dias sin prestamos no aparecen
+    public Map<LocalDate, Long> getLoansPerDay(LocalDate from, LocalDate to) {
+        var days = new LinkedHashMap<LocalDate, Long>();
+        for (var entry : loansPerDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).entrySet()) {
+            days.put(LocalDate.ofEpochDay(entry.getKey()), entry.getValue().sum());
+        }
+        return days;
+    }
+
+    public long getLoansByUser(String userId) {
+        var count = loansPerUser.get(userId);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getActiveLoansByUser(String userId) {
+        var count = activePerUser.get(userId);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getTotalLoans() {
+        return totalLoans.sum();
+    }
+
+    // Libros prestados en este momento
+    public long getOnLoanCount() {
+        return onLoan.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package com.devsenior.cache;
+
+/*
+ * Count-min sketch con contadores de 4 bits (16 por long) para estimar cuantas veces
+ * se pidio una clave. Cada clave usa un contador en cada una de 4 filas y la estimacion
+ * es el minimo. Cada cierto numero de incrementos todos los contadores se dividen a la
+ * mitad, asi las claves populares del pasado pierden peso.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        var length = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    void increment(Object key) {
+        var hash = key.hashCode();
+        var added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            var h = spread(hash, row);
+            var index = (int) (h >>> 4) & mask;
+            var shift = (int) (h & 15) << 2;
+            if (((table[index] >>> shift) & 15) < 15) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        var hash = key.hashCode();
+        var frequency = 15;
+        for (int row = 0; row < SEEDS.length; row++) {
+            var h = spread(hash, row);
+            var index = (int) (h >>> 4) & mask;
+            var shift = (int) (h & 15) << 2;
+            frequency = Math.min(frequency, (int) ((table[index] >>> shift) & 15));
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static long spread(int hash, int row) {
+        var h = (hash + SEEDS[row]) * SEEDS[row];
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,325 @@
+package com.devsenior.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Cache de tamaño acotado con la politica W-TinyLFU:
+ * - Las claves nuevas entran a una ventana LRU pequeña (1% del tamaño).
+ * - Al salir de la ventana compiten por entrar a la zona principal contra la victima de
+ *   la zona de prueba: entra la que tenga mayor frecuencia estimada (FrequencySketch).
+ *   Asi un recorrido de una sola vez no desplaza a las claves populares.
+ * - La zona principal es un LRU segmentado: prueba (20%) y protegida (80%); una clave
+ *   que se vuelve a pedir estando en prueba pasa a protegida.
+ *
+ * get(key, loader) lee a traves del cache: si falta, carga fuera del bloqueo y guarda el
+ * resultado; un null del cargador se guarda como ausencia (cache negativo). Si mientras
+ * se cargaba hubo una invalidacion, el resultado no se guarda para no dejar datos viejos.
+ *
+ * Un acierto no bloquea: lee el mapa concurrente y anota el acceso en un buffer de
+ * lecturas repartido en franjas por hilo. Las colas LRU y el sketch solo se tocan con el
+ * bloqueo; quien llena una franja intenta tomarlo (tryLock) y aplica los accesos
+ * anotados, y las escrituras los aplican antes de cambiar nada. Si una franja esta llena
+ * el acceso se descarta: la politica es aproximada y perder alguno no cambia el resultado.
+ */
+public class WTinyLfuCache<K, V> {
+
+    private static final Object ABSENT = new Object();
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = 3;
+
+    private final int maximumSize;
+    private final int maxWindow;
+    private final int maxProtected;
+    private final Map<K, Node<K>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReadBuffer<K> readBuffer = new ReadBuffer<>();
+    private final FrequencySketch sketch;
+    private final Node<K> window = Node.sentinel();
+    private final Node<K> probation = Node.sentinel();
+    private final Node<K> protectedQueue = Node.sentinel();
+    private int windowSize;
+    private int protectedSize;
+    // Solo se incrementa con el bloqueo tomado
+    private volatile long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long evictions;
+
+    public WTinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("El tamaño maximo debe ser positivo: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.maxWindow = Math.max(1, maximumSize / 100);
+        this.maxProtected = (int) ((maximumSize - maxWindow) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<K, V> loader) {
+        // Se lee antes de buscar: una invalidacion posterior impide guardar lo cargado
+        var seen = invalidations;
+        var node = data.get(key);
+        if (node != null) {
+            var value = node.value;
+            hits.increment();
+            if (value == ABSENT) {
+                negativeHits.increment();
+            }
+            afterRead(node);
+            return value == ABSENT ? null : (V) value;
+        }
+        misses.increment();
+        var value = loader.apply(key);
+        lock.lock();
+        try {
+            drainReads();
+            sketch.increment(key);
+            if (seen == invalidations && !data.containsKey(key)) {
+                insert(key, value == null ? ABSENT : value);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            drainReads();
+            invalidations++;
+            var node = data.get(key);
+            if (node != null) {
+                node.value = value == null ? ABSENT : value;
+                onAccess(node);
+            } else {
+                insert(key, value == null ? ABSENT : value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            drainReads();
+            invalidations++;
+            var node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+                node.queue = REMOVED;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            drainReads();
+            invalidations++;
+            for (var node : data.values()) {
+                node.queue = REMOVED;
+            }
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            windowSize = 0;
+            protectedSize = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.sum(), negativeHits.sum(), misses.sum(), evictions, data.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterRead(Node<K> node) {
+        if (readBuffer.offer(node) && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Con el bloqueo tomado: aplica los accesos anotados. Un nodo que ya salio del cache
+    // solo suma a la frecuencia de su clave
+    private void drainReads() {
+        readBuffer.drain(node -> {
+            sketch.increment(node.key);
+            if (node.queue != REMOVED) {
+                onAccess(node);
+            }
+        });
+    }
+
+    private void insert(K key, Object value) {
+        var node = new Node<>(key, value);
+        data.put(key, node);
+        node.queue = WINDOW;
+        append(window, node);
+        windowSize++;
+        if (windowSize > maxWindow) {
+            // El mas antiguo de la ventana pasa a prueba y, si no hay lugar, compite
+            var candidate = window.next;
+            unlink(candidate);
+            candidate.queue = PROBATION;
+            append(probation, candidate);
+            if (data.size() > maximumSize) {
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node<K> candidate) {
+        var victim = probation.next;
+        if (victim == candidate || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            victim = candidate;
+        }
+        unlink(victim);
+        data.remove(victim.key);
+        victim.queue = REMOVED;
+        evictions++;
+    }
+
+    private void onAccess(Node<K> node) {
+        switch (node.queue) {
+            case WINDOW -> moveToTail(window, node);
+            case PROBATION -> {
+                unlink(node);
+                node.queue = PROTECTED;
+                append(protectedQueue, node);
+                protectedSize++;
+                if (protectedSize > maxProtected) {
+                    var demoted = protectedQueue.next;
+                    unlink(demoted);
+                    demoted.queue = PROBATION;
+                    append(probation, demoted);
+                }
+            }
+            default -> moveToTail(protectedQueue, node);
+        }
+    }
+
+    private void moveToTail(Node<K> queue, Node<K> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        append(queue, node);
+    }
+
+    private void append(Node<K> queue, Node<K> node) {
+        node.prev = queue.prev;
+        node.next = queue;
+        queue.prev.next = node;
+        queue.prev = node;
+    }
+
+    private void unlink(Node<K> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        if (node.queue == WINDOW) {
+            windowSize--;
+        } else if (node.queue == PROTECTED) {
+            protectedSize--;
+        }
+    }
+
+    private static final class Node<K> {
+
+        private K key;
+        private volatile Object value;
+        // Solo se lee y se cambia con el bloqueo tomado
+        private int queue;
+        private Node<K> prev;
+        private Node<K> next;
+
+        Node(K key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        static <K> Node<K> sentinel() {
+            var node = new Node<K>(null, null);
+            node.clear();
+            return node;
+        }
+
+        // Solo para centinelas: deja la cola vacia
+        void clear() {
+            prev = this;
+            next = this;
+        }
+    }
+
+    // Franjas de accesos pendientes. Cada hilo escribe en la franja de su id; si esta
+    // llena el acceso se pierde. offer devuelve true cuando la franja se lleno
+    private static final class ReadBuffer<K> {
+
+        private static final int STRIPE_SIZE = 16;
+
+        private final Stripe<K>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        ReadBuffer() {
+            var count = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+            stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe<>();
+            }
+        }
+
+        boolean offer(Node<K> node) {
+            var hash = (int) Thread.currentThread().threadId() * 0x9E3779B9;
+            var stripe = stripes[(hash >>> 16) & (stripes.length - 1)];
+            var index = stripe.writes.getAndIncrement();
+            if (index < STRIPE_SIZE) {
+                stripe.slots.lazySet(index, node);
+            }
+            return index >= STRIPE_SIZE - 1;
+        }
+
+        void drain(Consumer<Node<K>> action) {
+            for (var stripe : stripes) {
+                var count = Math.min(stripe.writes.get(), STRIPE_SIZE);
+                for (int i = 0; i < count; i++) {
+                    var node = stripe.slots.getAndSet(i, null);
+                    if (node != null) {
+                        action.accept(node);
+                    }
+                }
+                if (count > 0) {
+                    stripe.writes.set(0);
+                }
+            }
+        }
+    }
+
+    private static final class Stripe<K> {
+
+        private final AtomicInteger writes = new AtomicInteger();
+        private final AtomicReferenceArray<Node<K>> slots = new AtomicReferenceArray<>(ReadBuffer.STRIPE_SIZE);
+    }
+}
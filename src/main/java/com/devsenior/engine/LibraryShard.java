@@ -0,0 +1,202 @@
+package com.devsenior.engine;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.devsenior.exception.DuplicateException;
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.model.Loan;
+import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+import com.devsenior.repository.LoanHistory;
+
+/*
+ * Particion del catalogo. Solo el hilo de la particion toca sus mapas, asi que no
+ * necesitan bloqueos: los demas hilos le dejan tareas en el buzon y reciben la
+ * respuesta en un CompletableFuture.
+ *
+ * Al detenerla se procesa lo que ya estaba en el buzon; lo que llegue despues (o quede
+ * en el buzon cuando el hilo termina) falla con RejectedExecutionException.
+ */
+class LibraryShard implements Runnable {
+
+    private static final int BATCH = 256;
+    private static final Task<Void> STOP = new Task<>(() -> null);
+
+    private final BlockingQueue<Task<?>> mailbox;
+    private final Thread owner;
+    private final Period loanPeriod;
+    private volatile boolean closed;
+    // El hilo ya no va a ejecutar nada: lo que quede en el buzon se rechaza
+    private volatile boolean terminated;
+    private Map<String, Book> books = new HashMap<>();
+    private Map<String, Loan> activeLoans = new HashMap<>();
+    // Prestamos activos de cada usuario; los terminados pasan al historial columnar
+    private Map<String, List<Loan>> activeByUser = new HashMap<>();
+    private LoanHistory history = new LoanHistory();
+
+    LibraryShard(int index, int mailboxCapacity, Period loanPeriod) {
+        this.mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+        this.loanPeriod = loanPeriod;
+        this.owner = new Thread(this, "library-shard-" + index);
+        this.owner.setDaemon(true);
+        this.owner.start();
+    }
+
+    // Si el buzon esta lleno quien llama espera: es la contrapresion de la particion
+    <T> CompletableFuture<T> submit(Callable<T> body) {
+        var task = new Task<>(body);
+        if (closed) {
+            task.reject();
+            return task.future;
+        }
+        try {
+            mailbox.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.completeExceptionally(e);
+        }
+        // Si el hilo termino mientras se encolaba, nadie mas va a vaciar el buzon
+        if (terminated) {
+            rejectPending();
+        }
+        return task.future;
+    }
+
+    @Override
+    public void run() {
+        var batch = new ArrayList<Task<?>>(BATCH);
+        try {
+            var stopped = false;
+            while (!stopped) {
+                batch.add(mailbox.take());
+                mailbox.drainTo(batch, BATCH - 1);
+                for (var task : batch) {
+                    if (task == STOP) {
+                        stopped = true;
+                    } else if (stopped) {
+                        task.reject();
+                    } else {
+                        task.run();
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            terminated = true;
+            rejectPending();
+        }
+    }
+
+    synchronized void stop() throws InterruptedException {
+        if (!closed) {
+            closed = true;
+            mailbox.put(STOP);
+        }
+        owner.join();
+    }
+
+    private void rejectPending() {
+        Task<?> task;
+        while ((task = mailbox.poll()) != null) {
+            task.reject();
+        }
+    }
+
+    // Los metodos siguientes solo se llaman desde el hilo de la particion. Los Loan que
+    // devuelven son copias: los de la particion solo los toca su hilo
+
+    Book addBook(String isbn, String title, String author) {
+        var book = new Book(isbn, title, author);
+        if (books.putIfAbsent(isbn, book) != null) {
+            throw new DuplicateException("Ya existe un libro con isbn: " + isbn);
+        }
+        return book;
+    }
+
+    Book getBook(String isbn) throws NotFoundException {
+        var book = books.get(isbn);
+        if (book == null) {
+            throw new NotFoundException("No fue encontrado el libro con isbn: ", isbn);
+        }
+        return book;
+    }
+
+    Loan addLoan(User user, String isbn, LocalDate loanDate) throws NotFoundException {
+        var book = getBook(isbn);
+        if (activeLoans.containsKey(isbn)) {
+            throw new NotFoundException("El libro con isbn " + isbn + " ya se encuentra prestado y debe ser devuelto antes de volver a prestar.");
+        }
+        var loan = new Loan(user, book, loanDate, loanDate.plus(loanPeriod), LoanState.STARTED, null);
+        activeLoans.put(isbn, loan);
+        activeByUser.computeIfAbsent(user.getId(), key -> new ArrayList<>()).add(loan);
+        return new Loan(loan);
+    }
+
+    Loan returnBook(String id, String isbn, LocalDate returnDate) throws NotFoundException {
+        var loan = activeLoans.get(isbn);
+        if (loan == null || !loan.getUser().getId().equals(id)) {
+            throw new NotFoundException("No hay un prestamo del libro: " + isbn + " para el usuario: " + id);
+        }
+        activeLoans.remove(isbn);
+        var userLoans = activeByUser.get(id);
+        userLoans.remove(loan);
+        if (userLoans.isEmpty()) {
+            activeByUser.remove(id);
+        }
+        loan.setState(LoanState.FINISHED);
+        loan.setReturnDate(returnDate);
+        history.add(loan);
+        return new Loan(loan);
+    }
+
+    List<Loan> findLoansByUserId(String id) {
+        var loans = history.findByUserId(id);
+        var active = activeByUser.get(id);
+        if (active != null) {
+            for (var loan : active) {
+                loans.add(new Loan(loan));
+            }
+        }
+        return loans;
+    }
+
+    int activeLoanCount() {
+        return activeLoans.size();
+    }
+
+    private static final class Task<T> implements Runnable {
+
+        private final Callable<T> body;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Callable<T> body) {
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(body.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void reject() {
+            future.completeExceptionally(new RejectedExecutionException("La particion esta detenida"));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.devsenior.engine;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.model.Isbn;
+import com.devsenior.model.Loan;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+/*
+ * Motor particionado por isbn (en su forma canonica, ver Isbn.canonical): cada libro y sus prestamos viven en una sola particion
+ * con un unico hilo escritor, asi que prestar libros de particiones distintas no
+ * comparte ninguna estructura. Los usuarios siguen en UserService (lecturas sin
+ * bloqueo) y se resuelven en el hilo que llama antes de enviar la tarea.
+ *
+ * Las consultas de un usuario cruzan todas las particiones: se envian a todas y se
+ * juntan las respuestas.
+ */
+public class ShardedLibrary implements AutoCloseable {
+
+    private static final int DEFAULT_MAILBOX = 4_096;
+
+    private final LibraryShard[] shards;
+    private final UserService userService;
+
+    public ShardedLibrary(int shardCount, UserService userService) {
+        this(shardCount, DEFAULT_MAILBOX, LoanService.DEFAULT_LOAN_PERIOD, userService);
+    }
+
+    public ShardedLibrary(int shardCount, int mailboxCapacity, Period loanPeriod, UserService userService) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Se requiere al menos una particion");
+        }
+        this.userService = userService;
+        this.shards = new LibraryShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LibraryShard(i, mailboxCapacity, loanPeriod);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public CompletableFuture<Book> addBook(String isbn, String title, String author) {
+        var canonical = Isbn.canonical(isbn);
+        var shard = shardFor(canonical);
+        return shard.submit(() -> shard.addBook(canonical, title, author));
+    }
+
+    public CompletableFuture<Book> getBookByIsbn(String isbn) {
+        var canonical = Isbn.canonical(isbn);
+        var shard = shardFor(canonical);
+        return shard.submit(() -> shard.getBook(canonical));
+    }
+
+    public CompletableFuture<Loan> addLoan(String id, String isbn) {
+        return addLoan(id, isbn, LocalDate.now());
+    }
+
+    public CompletableFuture<Loan> addLoan(String id, String isbn, LocalDate loanDate) {
+        var user = userService.findUserById(id);
+        if (user.isEmpty()) {
+            return CompletableFuture.failedFuture(new NotFoundException("No existe el usuario con el id: ", id));
+        }
+        var canonical = Isbn.canonical(isbn);
+        var shard = shardFor(canonical);
+        return shard.submit(() -> shard.addLoan(user.get(), canonical, loanDate));
+    }
+
+    public CompletableFuture<Loan> returnBook(String id, String isbn) {
+        return returnBook(id, isbn, LocalDate.now());
+    }
+
+    public CompletableFuture<Loan> returnBook(String id, String isbn, LocalDate returnDate) {
+        var canonical = Isbn.canonical(isbn);
+        var shard = shardFor(canonical);
+        return shard.submit(() -> shard.returnBook(id, canonical, returnDate));
+    }
+
+    // Consulta a todas las particiones; falla con NotFoundException si no hay prestamos
+    public CompletableFuture<List<Loan>> getLoansByUserId(String id) {
+        return findLoansByUserId(id).thenApply(loans -> {
+            if (loans.isEmpty()) {
+                throw new CompletionException(
+                        new NotFoundException("No se encontraron prestamos para el usuario con id: ", id));
+            }
+            return loans;
+        });
+    }
+
+    public CompletableFuture<List<Loan>> findLoansByUserId(String id) {
+        var parts = new ArrayList<CompletableFuture<List<Loan>>>(shards.length);
+        for (var shard : shards) {
+            parts.add(shard.submit(() -> shard.findLoansByUserId(id)));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            var loans = new ArrayList<Loan>();
+            for (var part : parts) {
+                loans.addAll(part.join());
+            }
+            return loans;
+        });
+    }
+
+    public CompletableFuture<Integer> countActiveLoans() {
+        var parts = new ArrayList<CompletableFuture<Integer>>(shards.length);
+        for (var shard : shards) {
+            parts.add(shard.submit(shard::activeLoanCount));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            var total = 0;
+            for (var part : parts) {
+                total += part.join();
+            }
+            return total;
+        });
+    }
+
+    // Espera a que cada particion procese lo que tiene en el buzon y detiene sus hilos.
+    // Despues, cualquier operacion falla con RejectedExecutionException
+    @Override
+    public void close() {
+        try {
+            for (var shard : shards) {
+                shard.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Recibe el isbn canonico: las dos formas de un mismo ISBN van a la misma particion
+    private LibraryShard shardFor(String isbn) {
+        // Mezcla los bits del hash para repartir isbns con prefijos comunes
+        var hash = isbn.hashCode() * 0x9E3779B9;
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+}
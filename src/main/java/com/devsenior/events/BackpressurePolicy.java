@@ -0,0 +1,9 @@
+package com.devsenior.events;
+
+// Que hace quien publica cuando el suscriptor mas lento no ha liberado espacio
+public enum BackpressurePolicy {
+    // Espera a que haya espacio: ningun suscriptor pierde eventos
+    BLOCK,
+    // Descarta el evento y lo cuenta: publicar nunca espera
+    DROP
+}
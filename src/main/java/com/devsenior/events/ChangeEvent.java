@@ -0,0 +1,53 @@
+package com.devsenior.events;
+
+import com.devsenior.snapshot.ChangeType;
+
+/*
+ * Espacio reutilizable del anillo. Los manejadores lo reciben prestado: si necesitan
+ * guardar los datos despues de procesar el lote deben copiarlos.
+ *
+ * key es el isbn (libros y prestamos) o el id del usuario; userId solo se llena en
+ * prestamos; epochDay es la fecha del prestamo o de la devolucion, o Long.MIN_VALUE.
+ */
+public class ChangeEvent {
+
+    private long sequence;
+    private EntityType entity;
+    private ChangeType type;
+    private String key;
+    private String userId;
+    private long epochDay;
+
+    void set(long sequence, EntityType entity, ChangeType type, String key, String userId, long epochDay) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.type = type;
+        this.key = key;
+        this.userId = userId;
+        this.epochDay = epochDay;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public EntityType getEntity() {
+        return entity;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+}
@@ -0,0 +1,7 @@
+package com.devsenior.events;
+
+public interface ChangeHandler {
+
+    // endOfBatch indica el ultimo evento del lote, util para confirmar en bloque
+    void onEvent(ChangeEvent event, boolean endOfBatch);
+}
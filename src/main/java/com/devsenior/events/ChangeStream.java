@@ -0,0 +1,135 @@
+package com.devsenior.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.devsenior.snapshot.ChangeType;
+
+/*
+ * Flujo de cambios en memoria al estilo Disruptor. Los eventos se escriben en espacios
+ * reservados al crear el anillo, asi que publicar no crea objetos: se reclama una
+ * secuencia, se llenan los campos del espacio y se marca como publicada.
+ *
+ * Varios hilos pueden publicar a la vez. Cada suscriptor lleva su propia secuencia y
+ * drena por lotes; el espacio de un evento se reutiliza solo cuando todos los
+ * suscriptores lo procesaron (o, con DROP, el evento nuevo se descarta).
+ */
+public class ChangeStream {
+
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final ChangeEvent[] slots;
+    // Secuencia publicada en cada espacio; el consumidor la compara con la que espera
+    private final AtomicLongArray published;
+    private final int mask;
+    private final int capacity;
+    private final BackpressurePolicy policy;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    // Minimo conocido entre los suscriptores, para no recorrerlos en cada publicacion
+    private volatile long gatingCache = -1;
+
+    public ChangeStream() {
+        this(DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    public ChangeStream(int capacity, BackpressurePolicy policy) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.slots = new ChangeEvent[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            slots[i] = new ChangeEvent();
+            published.set(i, -1);
+        }
+    }
+
+    // Devuelve false si el evento se descarto por falta de espacio (solo con DROP)
+    public boolean publish(EntityType entity, ChangeType type, String key, String userId, long epochDay) {
+        long sequence;
+        if (policy == BackpressurePolicy.DROP) {
+            do {
+                sequence = claimed.get() + 1;
+                if (!hasCapacity(sequence)) {
+                    dropped.increment();
+                    return false;
+                }
+            } while (!claimed.compareAndSet(sequence - 1, sequence));
+        } else {
+            sequence = claimed.incrementAndGet();
+            var spins = 0;
+            while (!hasCapacity(sequence)) {
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(1_000);
+                }
+            }
+        }
+        var index = (int) (sequence & mask);
+        slots[index].set(sequence, entity, type, key, userId, epochDay);
+        published.set(index, sequence);
+        return true;
+    }
+
+    public Subscription subscribe() {
+        var subscription = new Subscription(this, claimed.get());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Ultima secuencia reclamada por quien publica
+    long getPublished() {
+        return claimed.get();
+    }
+
+    void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    int drain(Subscription subscription, ChangeHandler handler, int maxBatch) {
+        var next = subscription.sequence.get() + 1;
+        var available = 0;
+        while (available < maxBatch && published.get((int) ((next + available) & mask)) == next + available) {
+            available++;
+        }
+        var processed = 0;
+        try {
+            for (; processed < available; processed++) {
+                handler.onEvent(slots[(int) ((next + processed) & mask)], processed == available - 1);
+            }
+        } finally {
+            if (processed > 0) {
+                subscription.sequence.set(next + processed - 1);
+            }
+        }
+        return processed;
+    }
+
+    private boolean hasCapacity(long sequence) {
+        var wrap = sequence - capacity;
+        if (wrap <= gatingCache) {
+            return true;
+        }
+        var minimum = sequence - 1;
+        for (var subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence.get());
+        }
+        gatingCache = minimum;
+        return wrap <= minimum;
+    }
+}
@@ -0,0 +1,7 @@
+package com.devsenior.events;
+
+public enum EntityType {
+    BOOK,
+    USER,
+    LOAN
+}
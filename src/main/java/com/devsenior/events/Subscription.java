@@ -0,0 +1,34 @@
+package com.devsenior.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Posicion de un suscriptor en el anillo. Cada suscriptor avanza a su ritmo y solo lo
+ * debe drenar un hilo a la vez.
+ */
+public class Subscription implements AutoCloseable {
+
+    private final ChangeStream stream;
+    // Ultima secuencia procesada; quien publica no la puede sobrescribir
+    final AtomicLong sequence;
+
+    Subscription(ChangeStream stream, long start) {
+        this.stream = stream;
+        this.sequence = new AtomicLong(start);
+    }
+
+    // Procesa hasta maxBatch eventos disponibles y devuelve cuantos proceso
+    public int drain(ChangeHandler handler, int maxBatch) {
+        return stream.drain(this, handler, maxBatch);
+    }
+
+    // Eventos publicados que este suscriptor aun no procesa
+    public long getLag() {
+        return stream.getPublished() - sequence.get();
+    }
+
+    @Override
+    public void close() {
+        stream.unsubscribe(this);
+    }
+}
@@ -0,0 +1,8 @@
+package com.devsenior.exception;
+
+public class DuplicateException extends RuntimeException {
+
+    public DuplicateException(String message) {
+        super(message);
+    }
+}
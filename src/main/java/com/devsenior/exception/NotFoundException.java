@@ -1,8 +1,28 @@
 package com.devsenior.exception;
 
+// Sin traza de pila: los "no encontrado" son esperados y frecuentes, y capturar la pila
+// era el costo principal de cada fallo. El mensaje prefijo + clave se arma solo si se lee
 public class NotFoundException extends Exception{
 
+    private final String prefix;
+    private final String key;
+
     public NotFoundException(String message){
-        super(message);
+        this(message, null);
+    }
+
+    public NotFoundException(String prefix, String key){
+        super(null, null, false, false);
+        this.prefix = prefix;
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String getMessage() {
+        return key == null ? prefix : prefix + key;
     }
 }   
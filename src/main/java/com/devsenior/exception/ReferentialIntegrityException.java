@@ -0,0 +1,8 @@
+package com.devsenior.exception;
+
+public class ReferentialIntegrityException extends RuntimeException {
+
+    public ReferentialIntegrityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,140 @@
+package com.devsenior.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/*
+ * Lee un archivo CSV/TSV por bloques de lineas sin cargarlo completo en memoria.
+ * Cada bloque se convierte en paralelo y los resultados se entregan en el orden
+ * del archivo, asi la deteccion de duplicados es siempre la misma.
+ */
+public class DelimitedReader<T> {
+
+    private static final int CHUNK_SIZE = 16_384;
+
+    private char delimiter;
+    private String[] header;
+    private RowParser<T> parser;
+    private int parallelism;
+
+    public DelimitedReader(char delimiter, String[] header, RowParser<T> parser) {
+        this.delimiter = delimiter;
+        this.header = header;
+        this.parser = parser;
+        this.parallelism = ForkJoinPool.commonPool().getParallelism() + 1;
+    }
+
+    public static char delimiterFor(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".tsv") ? '\t' : ',';
+    }
+
+    public void read(InputStream input, Consumer<ParsedRow<T>> consumer) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        var pending = new ArrayDeque<CompletableFuture<List<ParsedRow<T>>>>();
+        long lineNumber = 0;
+
+        var chunk = new ArrayList<String>(CHUNK_SIZE);
+        long chunkStart = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && isHeader(line)) {
+                chunkStart = 2;
+                continue;
+            }
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                pending.add(parseAsync(chunk, chunkStart));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                chunkStart = lineNumber + 1;
+                // Solo hay unos pocos bloques en vuelo: la memoria no depende del tamaño del archivo
+                if (pending.size() >= parallelism) {
+                    drain(pending.poll(), consumer);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            pending.add(parseAsync(chunk, chunkStart));
+        }
+        while (!pending.isEmpty()) {
+            drain(pending.poll(), consumer);
+        }
+    }
+
+    private CompletableFuture<List<ParsedRow<T>>> parseAsync(List<String> lines, long firstLine) {
+        return CompletableFuture.supplyAsync(() -> {
+            var rows = new ArrayList<ParsedRow<T>>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                rows.add(parseLine(lines.get(i), firstLine + i));
+            }
+            return rows;
+        });
+    }
+
+    private ParsedRow<T> parseLine(String line, long lineNumber) {
+        if (line.isBlank()) {
+            return new ParsedRow<>(lineNumber, null, "Fila vacia");
+        }
+        try {
+            return new ParsedRow<>(lineNumber, parser.parse(split(line)), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow<>(lineNumber, null, e.getMessage());
+        }
+    }
+
+    private void drain(CompletableFuture<List<ParsedRow<T>>> future, Consumer<ParsedRow<T>> consumer) {
+        future.join().forEach(consumer);
+    }
+
+    private boolean isHeader(String line) {
+        var fields = split(line);
+        if (fields.length < header.length) {
+            return false;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (!fields[i].trim().equalsIgnoreCase(header[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Separa una linea respetando los campos entre comillas ("a,b" y "" como comilla escapada)
+    String[] split(String line) {
+        var fields = new ArrayList<String>(header.length);
+        var field = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,30 @@
+package com.devsenior.importer;
+
+import java.util.List;
+
+public class ImportResult {
+
+    private long imported;
+    private List<RowError> errors;
+
+    public ImportResult(long imported, List<RowError> errors) {
+        this.imported = imported;
+        this.errors = List.copyOf(errors);
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public long getDuplicates() {
+        return errors.stream().filter(error -> error.getType() == RowErrorType.DUPLICATE).count();
+    }
+
+    public long getInvalid() {
+        return errors.stream().filter(error -> error.getType() == RowErrorType.INVALID).count();
+    }
+}
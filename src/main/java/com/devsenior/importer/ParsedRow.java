@@ -0,0 +1,30 @@
+package com.devsenior.importer;
+
+public class ParsedRow<T> {
+
+    private long line;
+    private T value;
+    private String error;
+
+    ParsedRow(long line, T value, String error) {
+        this.line = line;
+        this.value = value;
+        this.error = error;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
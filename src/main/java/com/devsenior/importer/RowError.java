@@ -0,0 +1,26 @@
+package com.devsenior.importer;
+
+public class RowError {
+
+    private long line;
+    private RowErrorType type;
+    private String message;
+
+    public RowError(long line, RowErrorType type, String message) {
+        this.line = line;
+        this.type = type;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public RowErrorType getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
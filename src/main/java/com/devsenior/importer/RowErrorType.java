@@ -0,0 +1,5 @@
+package com.devsenior.importer;
+
+public enum RowErrorType {
+    INVALID, DUPLICATE;
+}
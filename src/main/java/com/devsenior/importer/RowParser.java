@@ -0,0 +1,8 @@
+package com.devsenior.importer;
+
+@FunctionalInterface
+public interface RowParser<T> {
+
+    // Lanza IllegalArgumentException si la fila no es valida
+    T parse(String[] fields);
+}
@@ -0,0 +1,122 @@
+package com.devsenior.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Histograma de latencias en nanosegundos sin bloqueos. Cada potencia de dos se divide
+ * en 8 sub-rangos, asi que el error relativo de un percentil es menor al 12.5% y
+ * registrar un valor es un calculo de bits mas un incremento.
+ *
+ * Cada sub-rango es un LongAdder: los hilos que registran latencias parecidas caen en
+ * el mismo sub-rango, y con un contador atomico compartido competirian por su linea de
+ * cache. El LongAdder reparte los incrementos en celdas solo si hay contencion.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        counts[indexOf(Math.max(0, nanos))].increment();
+    }
+
+    // Copia de los contadores para calcular varios valores sobre las mismas muestras
+    public long[] counts() {
+        var copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts[i].sum();
+        }
+        return copy;
+    }
+
+    public long percentile(double fraction) {
+        return percentile(counts(), fraction);
+    }
+
+    // Valor por debajo del cual queda la fraccion indicada de las muestras (0.99 = p99)
+    public static long percentile(long[] counts, double fraction) {
+        var total = total(counts);
+        if (total == 0) {
+            return 0;
+        }
+        var rank = Math.max(1, (long) Math.ceil(fraction * total));
+        var seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(counts.length - 1);
+    }
+
+    public static long total(long[] counts) {
+        var total = 0L;
+        for (var count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Promedio aproximado tomando el punto medio de cada sub-rango
+    public static long mean(long[] counts) {
+        var total = 0L;
+        var sum = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                total += counts[i];
+                sum += counts[i] * ((lowestValue(i) + highestValue(i)) / 2.0);
+            }
+        }
+        return total == 0 ? 0 : Math.round(sum / total);
+    }
+
+    public static long max(long[] counts) {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (var count : counts) {
+            count.reset();
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var msb = 63 - Long.numberOfLeadingZeros(value);
+        var shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    // Mayor valor que cae en el sub-rango, para no subestimar los percentiles
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        return lowestValue(index) + (1L << (index / SUB_BUCKETS - 1)) - 1;
+    }
+}
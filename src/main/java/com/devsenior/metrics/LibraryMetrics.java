@@ -0,0 +1,104 @@
+package com.devsenior.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.devsenior.metrics.OperationStats.Outcome;
+
+/*
+ * Registro de tiempos y contadores por operacion. Uso:
+ *
+ *   var start = metrics.start();
+ *   ... operacion ...
+ *   metrics.stop(Operation.X, start, Outcome.SUCCESS);
+ *
+ * Deshabilitado, start() devuelve 0 sin leer el reloj y stop() lo ignora, asi que el
+ * costo es una lectura de un volatile por llamada. La instancia compartida viene
+ * deshabilitada: se enciende con -Dlibrary.metrics.enabled=true o por JMX (setEnabled).
+ */
+public class LibraryMetrics implements LibraryMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.devsenior:type=LibraryMetrics";
+
+    private static final LibraryMetrics INSTANCE = new LibraryMetrics(
+            Boolean.parseBoolean(System.getProperty("library.metrics.enabled", "false")));
+
+    private volatile boolean enabled;
+    private OperationStats[] stats;
+
+    public LibraryMetrics(boolean enabled) {
+        this.enabled = enabled;
+        var operations = Operation.values();
+        this.stats = new OperationStats[operations.length];
+        for (var operation : operations) {
+            stats[operation.ordinal()] = new OperationStats(operation);
+        }
+    }
+
+    // Instancia compartida que usan los servicios si no se les asigna otra
+    public static LibraryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(Operation operation, long start, Outcome outcome) {
+        if (start == 0) {
+            return;
+        }
+        stats[operation.ordinal()].record(System.nanoTime() - start, outcome);
+    }
+
+    public OperationSnapshot snapshot(Operation operation) {
+        return stats[operation.ordinal()].snapshot();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        var snapshots = new ArrayList<OperationSnapshot>(stats.length);
+        for (var operationStats : stats) {
+            snapshots.add(operationStats.snapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        for (var operationStats : stats) {
+            operationStats.reset();
+        }
+    }
+
+    // Publica las metricas en el servidor de MBeans de la plataforma (jconsole, VisualVM)
+    public void registerMBean() {
+        registerMBean(OBJECT_NAME);
+    }
+
+    public void registerMBean(String name) {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("No fue posible registrar las metricas en JMX", e);
+        }
+    }
+}
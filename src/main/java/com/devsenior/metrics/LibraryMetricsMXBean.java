@@ -0,0 +1,14 @@
+package com.devsenior.metrics;
+
+import java.util.List;
+
+public interface LibraryMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    List<OperationSnapshot> getOperations();
+
+    void reset();
+}
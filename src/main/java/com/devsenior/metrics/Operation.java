@@ -0,0 +1,7 @@
+package com.devsenior.metrics;
+
+public enum Operation {
+    ADD_LOAN,
+    GET_BOOK_BY_ISBN,
+    GET_USER_BY_ID
+}
@@ -0,0 +1,68 @@
+package com.devsenior.metrics;
+
+import java.beans.ConstructorProperties;
+
+// Foto de los contadores de una operacion; los tiempos van en nanosegundos
+public class OperationSnapshot {
+
+    private final String operation;
+    private final long calls;
+    private final long misses;
+    private final long errors;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({ "operation", "calls", "misses", "errors", "meanNanos", "p50Nanos", "p99Nanos",
+            "p999Nanos", "maxNanos" })
+    public OperationSnapshot(String operation, long calls, long misses, long errors, long meanNanos,
+            long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.operation = operation;
+        this.calls = calls;
+        this.misses = misses;
+        this.errors = errors;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+}
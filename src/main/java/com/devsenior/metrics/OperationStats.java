@@ -0,0 +1,51 @@
+package com.devsenior.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Contadores de una operacion. Las llamadas, el promedio y el maximo se derivan del
+ * histograma, asi que una llamada exitosa solo cuesta un incremento; todos los
+ * contadores son LongAdder para no competir por la misma linea de cache.
+ */
+public class OperationStats {
+
+    private final Operation operation;
+    private LongAdder misses = new LongAdder();
+    private LongAdder errors = new LongAdder();
+    private LatencyHistogram latencies = new LatencyHistogram();
+
+    public OperationStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    public void record(long nanos, Outcome outcome) {
+        if (outcome == Outcome.MISS) {
+            misses.increment();
+        } else if (outcome == Outcome.ERROR) {
+            errors.increment();
+        }
+        latencies.record(nanos);
+    }
+
+    public OperationSnapshot snapshot() {
+        var counts = latencies.counts();
+        return new OperationSnapshot(operation.name(), LatencyHistogram.total(counts), misses.sum(), errors.sum(),
+                LatencyHistogram.mean(counts),
+                LatencyHistogram.percentile(counts, 0.50),
+                LatencyHistogram.percentile(counts, 0.99),
+                LatencyHistogram.percentile(counts, 0.999),
+                LatencyHistogram.max(counts));
+    }
+
+    public void reset() {
+        misses.reset();
+        errors.reset();
+        latencies.reset();
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        MISS,
+        ERROR
+    }
+}
@@ -0,0 +1,31 @@
+package com.devsenior.model;
+
+import java.util.List;
+
+// Resultado de un borrado masivo de usuarios
+public class DeleteResult {
+
+    private int deleted;
+    private List<String> missing;
+    private List<String> blocked;
+
+    public DeleteResult(int deleted, List<String> missing, List<String> blocked) {
+        this.deleted = deleted;
+        this.missing = missing;
+        this.blocked = blocked;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    // Ids que no existian
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    // Ids que no se borraron por tener prestamos activos
+    public List<String> getBlocked() {
+        return blocked;
+    }
+}
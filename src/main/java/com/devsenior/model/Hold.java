@@ -0,0 +1,48 @@
+package com.devsenior.model;
+
+import java.time.LocalDate;
+
+// Reserva de un usuario sobre un libro prestado; vale hasta expiryDate inclusive
+public class Hold {
+    private String userId;
+    private String isbn;
+    private LocalDate placedDate;
+    private LocalDate expiryDate;
+    private volatile HoldState state;
+
+    public Hold(String userId, String isbn, LocalDate placedDate, LocalDate expiryDate) {
+        this.userId = userId;
+        this.isbn = isbn;
+        this.placedDate = placedDate;
+        this.expiryDate = expiryDate;
+        this.state = HoldState.WAITING;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public LocalDate getPlacedDate() {
+        return placedDate;
+    }
+
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    public HoldState getState() {
+        return state;
+    }
+
+    public void setState(HoldState state) {
+        this.state = state;
+    }
+
+    public boolean isExpired(LocalDate today) {
+        return expiryDate.isBefore(today);
+    }
+}
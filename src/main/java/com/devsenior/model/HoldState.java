@@ -0,0 +1,5 @@
+package com.devsenior.model;
+
+public enum HoldState {
+    WAITING, FULFILLED, CANCELLED, EXPIRED;
+}
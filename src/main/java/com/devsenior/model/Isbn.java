@@ -0,0 +1,92 @@
+package com.devsenior.model;
+
+// Conversion de ISBN-10/ISBN-13 a un long con el valor del ISBN-13 equivalente
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    public static long parse(String isbn) {
+        var value = tryParse(isbn);
+        if (value < 0) {
+            throw new IllegalArgumentException("ISBN invalido: " + isbn);
+        }
+        return value;
+    }
+
+    // Devuelve -1 si el texto no es un ISBN valido (guiones y espacios se ignoran)
+    public static long tryParse(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        var digits = new int[13];
+        var count = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            var c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (count == 13) {
+                return -1;
+            }
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                digits[count++] = 10;
+            } else {
+                return -1;
+            }
+        }
+        if (count == 10) {
+            return fromIsbn10(digits);
+        }
+        if (count == 13) {
+            return fromIsbn13(digits);
+        }
+        return -1;
+    }
+
+    // ISBN-13 sin guiones si el texto es un ISBN valido; si no, el mismo texto
+    public static String canonical(String isbn) {
+        var parsed = tryParse(isbn);
+        return parsed > 0 ? format(parsed) : isbn;
+    }
+
+    public static String format(long isbn) {
+        return Long.toString(isbn);
+    }
+
+    private static long fromIsbn10(int[] digits) {
+        var sum = 0;
+        for (int i = 0; i < 10; i++) {
+            if (digits[i] == 10 && i != 9) {
+                return -1;
+            }
+            sum += (10 - i) * digits[i];
+        }
+        if (sum % 11 != 0) {
+            return -1;
+        }
+        // 978 + los 9 primeros digitos + nuevo digito de control
+        long value = 978;
+        var check = 9 + 7 * 3 + 8;
+        for (int i = 0; i < 9; i++) {
+            value = value * 10 + digits[i];
+            check += digits[i] * (i % 2 == 0 ? 3 : 1);
+        }
+        return value * 10 + (10 - check % 10) % 10;
+    }
+
+    private static long fromIsbn13(int[] digits) {
+        var sum = 0;
+        long value = 0;
+        for (int i = 0; i < 13; i++) {
+            if (digits[i] == 10) {
+                return -1;
+            }
+            sum += digits[i] * (i % 2 == 0 ? 1 : 3);
+            value = value * 10 + digits[i];
+        }
+        return sum % 10 == 0 && value > 0 ? value : -1;
+    }
+}
@@ -6,7 +6,9 @@ public class Loan {
     private User user;
     private Book book;
     private LocalDate loanDate;
-    private LoanState state;
+    private LocalDate dueDate;
+    private volatile LoanState state;
+    private LocalDate returnDate;
 
     public Loan(User user, Book book) {
         this(user, book, LocalDate.now(), LoanState.STARTED);
@@ -17,10 +19,25 @@ public class Loan {
     }
 
     public Loan(User user, Book book, LocalDate loanDate, LoanState state) {
+        this(user, book, loanDate, state, null);
+    }
+
+    public Loan(User user, Book book, LocalDate loanDate, LoanState state, LocalDate returnDate) {
+        this(user, book, loanDate, null, state, returnDate);
+    }
+
+    public Loan(User user, Book book, LocalDate loanDate, LocalDate dueDate, LoanState state, LocalDate returnDate) {
         this.user = user;
         this.book = book;
         this.loanDate = loanDate;
+        this.dueDate = dueDate;
         this.state = state;
+        this.returnDate = returnDate;
+    }
+
+    // Copia con los valores actuales; el usuario tambien se copia
+    public Loan(Loan loan) {
+        this(new User(loan.user), loan.book, loan.loanDate, loan.dueDate, loan.state, loan.returnDate);
     }
 
     public User getUser() {
@@ -35,6 +52,10 @@ public class Loan {
         return loanDate;
     }
 
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
     public LoanState getState() {
         return state;
     }
@@ -43,6 +64,14 @@ public class Loan {
     public void setState(LoanState state) {
         this.state = state;
     }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public void setReturnDate(LocalDate returnDate) {
+        this.returnDate = returnDate;
+    }
     
 
 }
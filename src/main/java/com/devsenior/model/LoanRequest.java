@@ -0,0 +1,20 @@
+package com.devsenior.model;
+
+public class LoanRequest {
+
+    private String userId;
+    private String isbn;
+
+    public LoanRequest(String userId, String isbn) {
+        this.userId = userId;
+        this.isbn = isbn;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+}
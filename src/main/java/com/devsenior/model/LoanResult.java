@@ -0,0 +1,31 @@
+package com.devsenior.model;
+
+// Resultado de un elemento de una operacion por lotes: error es null si se aplico
+public class LoanResult {
+
+    private String userId;
+    private String isbn;
+    private String error;
+
+    public LoanResult(String userId, String isbn, String error) {
+        this.userId = userId;
+        this.isbn = isbn;
+        this.error = error;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
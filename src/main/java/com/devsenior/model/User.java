@@ -22,6 +22,11 @@ public class User {
         this.registerDate = registerDate;
     }
 
+    // Copia con los valores actuales, que no cambia si despues se edita el original
+    public User(User user) {
+        this(user.id, user.name, user.email, user.registerDate);
+    }
+
 
     public String getId() {
         return id;
@@ -0,0 +1,6 @@
+package com.devsenior.pagination;
+
+public enum BookSort {
+    TITLE,
+    ISBN
+}
@@ -0,0 +1,27 @@
+package com.devsenior.pagination;
+
+import java.util.List;
+
+// Una pagina de resultados; nextCursor es null cuando no hay mas
+public class Page<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.devsenior.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/*
+ * Indice ordenado para paginar con cursor. Cada elemento se guarda con una clave
+ * (orden, desempate) y el cursor es la clave del ultimo elemento entregado, asi que
+ * pedir la siguiente pagina es buscar la clave en la skip list y avanzar: O(log n +
+ * tamaño de pagina), sin copiar ni ordenar la coleccion. Las inserciones y borrados
+ * concurrentes no desplazan las paginas ya entregadas.
+ */
+public class SortedIndex<T> {
+
+    private NavigableMap<Key, T> entries = new ConcurrentSkipListMap<>();
+
+    public void add(String order, String tiebreak, T value) {
+        entries.put(new Key(order, tiebreak), value);
+    }
+
+    // Carga masiva: las claves se ordenan en paralelo y se insertan en orden, que en la
+    // skip list recorre siempre el mismo camino
+    public void addAll(Collection<T> values, Function<T, String> order, Function<T, String> tiebreak) {
+        addAll(values, order, tiebreak, Function.identity());
+    }
+
+    // Igual, pero lo que se guarda es value(source) y no el elemento que trae las claves
+    public <S> void addAll(Collection<S> sources, Function<S, String> order, Function<S, String> tiebreak,
+            Function<S, T> value) {
+        @SuppressWarnings("unchecked")
+        var sorted = (Map.Entry<Key, T>[]) sources.parallelStream()
+                .map(source -> Map.entry(new Key(order.apply(source), tiebreak.apply(source)), value.apply(source)))
+                .toArray(Map.Entry[]::new);
+        Arrays.parallelSort(sorted, Map.Entry.comparingByKey());
+        for (var entry : sorted) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void remove(String order, String tiebreak) {
+        entries.remove(new Key(order, tiebreak));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // cursor null o vacio empieza desde el principio
+    public Page<T> page(String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de pagina debe ser positivo: " + limit);
+        }
+        var tail = cursor == null || cursor.isEmpty() ? entries : entries.tailMap(decode(cursor), false);
+        var items = new ArrayList<T>(Math.min(limit, 256));
+        Key last = null;
+        for (var entry : tail.entrySet()) {
+            if (items.size() == limit) {
+                return new Page<>(items, encode(last));
+            }
+            items.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new Page<>(items, null);
+    }
+
+    private static String encode(Key key) {
+        var raw = key.order + '\0' + key.tiebreak;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor invalido: " + cursor);
+        }
+        var separator = raw.indexOf('\0');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Cursor invalido: " + cursor);
+        }
+        return new Key(raw.substring(0, separator), raw.substring(separator + 1));
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        private final String order;
+        private final String tiebreak;
+
+        Key(String order, String tiebreak) {
+            this.order = order;
+            this.tiebreak = tiebreak;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            var byOrder = order.compareTo(other.order);
+            return byOrder != 0 ? byOrder : tiebreak.compareTo(other.tiebreak);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.devsenior.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+import com.devsenior.exception.DuplicateException;
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Hold;
+import com.devsenior.service.BookService;
+import com.devsenior.service.IntegrityMode;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+/*
+ * Bitacora binaria de solo escritura al final con las mutaciones de los servicios.
+ *
+ * Cada registro es [int largo][int crc][byte tipo][long fecha][byte campos][campos...]
+ * y los textos van como [int largo][bytes UTF-8] (largo -1 para null). Cada registro se
+ * escribe en el archivo al agregarlo, asi que una caida del proceso no pierde nada; lo
+ * que se agrupa es el force a disco, cada syncEvery registros.
+ *
+ * LoanService anota cada registro antes de aplicar el cambio en memoria, asi que un
+ * registro ya escrito puede no estar aplicado todavia, y repetir un prestamo y su
+ * devolucion que ya estan en el snapshot los duplicaria. Por eso esas operaciones entran
+ * y salen de la bitacora (enter/exit): el snapshot detiene las nuevas, espera a que
+ * terminen las que estan en curso, marca la posicion y copia el estado en memoria. El
+ * archivo se escribe y se fuerza a disco despues, sin detener a nadie. Libros y usuarios
+ * se aplican antes de anotarse y repetirlos es idempotente, asi que no se detienen.
+ *
+ * Al recuperar, un registro incompleto o con checksum invalido al final del archivo es
+ * una escritura cortada por una caida y se descarta. Uno invalido seguido de mas
+ * registros es corrupcion y open falla en lugar de perder lo que viene despues.
+ */
+public class Journal implements AutoCloseable {
+
+    static final String JOURNAL_FILE = "journal.bin";
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    // tipo, fecha y cantidad de campos
+    private static final int MIN_BODY_BYTES = 1 + Long.BYTES + 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final System.Logger LOG = System.getLogger(Journal.class.getName());
+
+    private final Path directory;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    // ReentrantLock y no synchronized: un hilo virtual que espera el turno o el force no
+    // deja fijo su hilo portador
+    private final ReentrantLock lock = new ReentrantLock();
+    // Un snapshot a la vez
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    // Operaciones de LoanService en curso, y la espera de las nuevas mientras se copia el estado
+    private final AtomicLong applying = new AtomicLong();
+    private volatile CountDownLatch paused;
+    private final int syncEvery;
+    private final long skippedRecords;
+    private long position;
+    private int unsynced;
+
+    private Journal(Path directory, FileChannel channel, long position, int syncEvery, long skippedRecords) {
+        this.directory = directory;
+        this.channel = channel;
+        this.position = position;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.skippedRecords = skippedRecords;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    // Recupera el estado del directorio (snapshot + cola de la bitacora) en los servicios
+    // vacios y los deja escribiendo en la bitacora
+    public static Journal open(Path directory, int syncEvery, BookService bookService,
+            UserService userService, LoanService loanService) throws IOException {
+        Files.createDirectories(directory);
+        var start = Snapshot.load(directory.resolve(Snapshot.SNAPSHOT_FILE), bookService, userService, loanService);
+
+        var channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // La bitacora ya trae las devoluciones que hizo un borrado en cascada, asi que al
+        // repetirla no se vuelve a aplicar la politica de integridad
+        var mode = loanService.getIntegrityMode();
+        loanService.setIntegrityMode(IntegrityMode.NONE);
+        long end;
+        var skipped = new long[1];
+        try {
+            end = replay(channel, start, skipped, bookService, userService, loanService);
+        } finally {
+            loanService.setIntegrityMode(mode);
+        }
+        // Un registro incompleto al final (caida a mitad de escritura) se descarta
+        channel.truncate(end);
+        channel.position(end);
+
+        var journal = new Journal(directory, channel, end, syncEvery, skipped[0]);
+        bookService.setJournal(journal);
+        userService.setJournal(journal);
+        loanService.setJournal(journal);
+        return journal;
+    }
+
+    public void append(JournalRecordType type, LocalDate date, String... fields) {
+        lock.lock();
+        try {
+            write(type, date, fields);
+            if (++unsynced >= syncEvery) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Se llama antes de una operacion que anota y luego aplica, y exit cuando el cambio ya
+    // esta en memoria. Mientras un snapshot copia el estado, enter espera
+    public void enter() {
+        while (true) {
+            var gate = paused;
+            if (gate != null) {
+                awaitUninterruptibly(gate);
+                continue;
+            }
+            applying.incrementAndGet();
+            // Si el snapshot empezo entre la lectura y el incremento, se le cede el paso
+            if (paused == null) {
+                return;
+            }
+            exit();
+        }
+    }
+
+    public void exit() {
+        applying.decrementAndGet();
+    }
+
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            channel.force(false);
+            unsynced = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Escribe un snapshot completo y anota hasta donde llega la bitacora, para que la
+    // recuperacion solo tenga que repetir los registros posteriores. El bloqueo de la
+    // bitacora solo se toma para la marca; el archivo se escribe con todo en marcha
+    public void snapshot(BookService bookService, UserService userService,
+            LoanService loanService) throws IOException {
+        snapshotLock.lock();
+        try {
+            long mark;
+            Snapshot.Contents contents;
+            var resume = new CountDownLatch(1);
+            paused = resume;
+            try {
+                while (applying.get() != 0) {
+                    Thread.onSpinWait();
+                }
+                lock.lock();
+                try {
+                    sync();
+                    mark = position;
+                } finally {
+                    lock.unlock();
+                }
+                contents = Snapshot.capture(bookService, userService, loanService);
+            } finally {
+                paused = null;
+                resume.countDown();
+            }
+            Snapshot.write(directory.resolve(Snapshot.SNAPSHOT_FILE), mark, contents);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    public long getPosition() {
+        lock.lock();
+        try {
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registros de la recuperacion que no se pudieron aplicar (ver apply)
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            sync();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        var interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(JournalRecordType type, LocalDate date, String[] fields) throws IOException {
+        var encoded = new byte[fields.length][];
+        var bodyBytes = 1 + Long.BYTES + 1;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            bodyBytes += Integer.BYTES + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        var recordBytes = HEADER_BYTES + bodyBytes;
+        var target = recordBytes <= buffer.capacity() ? buffer.clear() : ByteBuffer.allocate(recordBytes);
+
+        target.putInt(bodyBytes).putInt(0);
+        target.put((byte) type.ordinal());
+        target.putLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+        target.put((byte) fields.length);
+        for (var bytes : encoded) {
+            if (bytes == null) {
+                target.putInt(-1);
+            } else {
+                target.putInt(bytes.length).put(bytes);
+            }
+        }
+        crc.reset();
+        crc.update(target.slice(HEADER_BYTES, bodyBytes));
+        target.putInt(Integer.BYTES, (int) crc.getValue());
+        writeFully(target.flip());
+        position += recordBytes;
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static long replay(FileChannel channel, long start, long[] skipped, BookService bookService,
+            UserService userService, LoanService loanService) throws IOException {
+        var size = channel.size();
+        var reader = ByteBuffer.allocateDirect(BUFFER_BYTES * 8).flip();
+        var checksum = new CRC32C();
+        var scratch = new byte[256];
+        var offset = start;
+        var readAt = start;
+
+        while (true) {
+            var available = reader.remaining();
+            var needed = available >= HEADER_BYTES ? HEADER_BYTES + reader.getInt(reader.position()) : HEADER_BYTES;
+            if (needed > size - offset) {
+                // Registro incompleto al final
+                return offset;
+            }
+            if (available >= HEADER_BYTES && needed < HEADER_BYTES + MIN_BODY_BYTES) {
+                return invalid(channel, offset, needed, size);
+            }
+            if (available < needed) {
+                // Se conserva lo pendiente y se lee el siguiente bloque del archivo
+                reader = ensureCapacity(reader.compact(), needed);
+                var read = channel.read(reader, readAt);
+                reader.flip();
+                if (read <= 0) {
+                    return offset;
+                }
+                readAt += read;
+                continue;
+            }
+
+            var bodyBytes = reader.getInt();
+            var expected = reader.getInt();
+            checksum.reset();
+            checksum.update(reader.slice(reader.position(), bodyBytes));
+            if ((int) checksum.getValue() != expected) {
+                return invalid(channel, offset, needed, size);
+            }
+            var end = reader.position() + bodyBytes;
+            scratch = apply(reader, scratch, skipped, bookService, userService, loanService);
+            reader.position(end);
+            offset += needed;
+        }
+    }
+
+    // Un registro invalido solo se descarta si es el ultimo del archivo, o si despues solo
+    // hay ceros (el sistema de archivos extendio el archivo pero la escritura no llego)
+    private static long invalid(FileChannel channel, long offset, long needed, long size) throws IOException {
+        if (offset + needed == size || onlyZeros(channel, offset, size)) {
+            return offset;
+        }
+        throw new IOException("La bitacora esta corrupta en la posicion " + offset);
+    }
+
+    private static boolean onlyZeros(FileChannel channel, long from, long size) throws IOException {
+        var block = ByteBuffer.allocate(BUFFER_BYTES);
+        for (var at = from; at < size; ) {
+            var read = channel.read(block.clear(), at);
+            if (read <= 0) {
+                return true;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) != 0) {
+                    return false;
+                }
+            }
+            at += read;
+        }
+        return true;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.capacity() >= needed) {
+            return buffer;
+        }
+        var larger = ByteBuffer.allocateDirect(needed);
+        return larger.put(buffer.flip());
+    }
+
+    // Devuelve el buffer de lectura de textos, que crece si algun campo no cabe
+    private static byte[] apply(ByteBuffer record, byte[] scratch, long[] skipped, BookService bookService,
+            UserService userService, LoanService loanService) {
+        var type = JournalRecordType.fromCode(record.get());
+        var epochDay = record.getLong();
+        var date = epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+        var fields = new String[record.get()];
+        for (int i = 0; i < fields.length; i++) {
+            var length = record.getInt();
+            if (length >= 0) {
+                if (length > scratch.length) {
+                    scratch = new byte[length];
+                }
+                record.get(scratch, 0, length);
+                fields[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+
+        // Un registro que ya no aplica (por ejemplo ya incluido en el snapshot) se salta,
+        // pero queda en el log y en getSkippedRecords para poder revisarlo
+        try {
+            switch (type) {
+                case ADD_BOOK -> bookService.addBook(fields[0], fields[1], fields[2]);
+                case DELETE_BOOK -> bookService.deleteBook(fields[0]);
+                case ADD_USER -> userService.addUser(fields[0], fields[1], fields[2], date);
+                case UPDATE_USER_EMAIL -> userService.updateUserEmail(fields[0], fields[1]);
+                case UPDATE_USER_NAME -> userService.updateUserName(fields[0], fields[1]);
+                case DELETE_USER -> userService.deleteUser(fields[0]);
+                case ADD_LOAN -> {
+                    if (fields.length > 2) {
+                        loanService.addLoan(fields[0], fields[1], date, LocalDate.ofEpochDay(Long.parseLong(fields[2])));
+                    } else {
+                        loanService.addLoan(fields[0], fields[1], date);
+                    }
+                }
+                case RETURN_BOOK -> {
+                    if (fields.length > 2) {
+                        loanService.returnBook(fields[0], fields[1], date, LocalDate.ofEpochDay(Long.parseLong(fields[2])));
+                    } else {
+                        loanService.returnBook(fields[0], fields[1], date);
+                    }
+                }
+                case PLACE_HOLD -> loanService.restoreHold(
+                        new Hold(fields[0], fields[1], date, LocalDate.ofEpochDay(Long.parseLong(fields[2]))));
+                case CANCEL_HOLD -> loanService.cancelHold(fields[0], fields[1]);
+                case EXPIRE_HOLDS -> {
+                    // Los registros anteriores a las colas por isbn vencian todo de una vez
+                    if (fields.length > 0) {
+                        loanService.expireHolds(fields[0], date);
+                    } else {
+                        loanService.expireHolds(date);
+                    }
+                }
+            }
+        } catch (NotFoundException | DuplicateException e) {
+            skipped[0]++;
+            LOG.log(System.Logger.Level.WARNING, "Registro " + type + " de la bitacora no aplicado: " + e.getMessage());
+        }
+        return scratch;
+    }
+}
@@ -0,0 +1,15 @@
+package com.devsenior.persistence;
+
+public enum JournalRecordType {
+    ADD_BOOK, DELETE_BOOK, ADD_USER, UPDATE_USER_EMAIL, UPDATE_USER_NAME, DELETE_USER, ADD_LOAN, RETURN_BOOK,
+    PLACE_HOLD, CANCEL_HOLD, EXPIRE_HOLDS;
+
+    private static final JournalRecordType[] VALUES = values();
+
+    static JournalRecordType fromCode(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Tipo de registro desconocido: " + code);
+        }
+        return VALUES[code];
+    }
+}
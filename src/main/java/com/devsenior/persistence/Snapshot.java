@@ -0,0 +1,525 @@
+package com.devsenior.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.model.Hold;
+import com.devsenior.model.Loan;
+import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+/*
+ * Estado completo de los servicios junto con la posicion de la bitacora que ya incluye.
+ *
+ * Version 5:
+ *   cabecera   [magic][version][posicion bitacora long][secciones int]
+ *              por seccion [offset long][largo int][crc32c int], y el crc de la cabecera
+ *   textos     [cantidad][offsets int x (cantidad + 1)][bytes UTF-8], sin repetidos
+ *   libros     [total][vigentes] y por libro [isbn][titulo][autor]
+ *   usuarios   [total][vigentes] y por usuario [id][nombre][email][dia de alta]
+ *   prestamos  [cantidad] y por prestamo [libro][usuario][dia][vencimiento][devolucion][estado]
+ *   reservas   [cantidad] y por reserva [usuario][isbn][dia][vencimiento], en el orden
+ *              de su cola
+ * Los textos se guardan como indice al diccionario (-1 para null), libros y usuarios de
+ * un prestamo como indice a su seccion y las fechas como dias desde la epoca. Todos los
+ * registros son de largo fijo: al cargar, cada seccion se verifica y se decodifica por
+ * rangos en paralelo sobre el archivo mapeado. Los libros y usuarios ya borrados que
+ * siguen en prestamos van despues de los vigentes y no se cargan en los servicios.
+ *
+ * Se siguen leyendo la version 4 (las mismas secciones sin la de reservas) y la 3 (un
+ * flujo de DataOutputStream).
+ */
+final class Snapshot {
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private static final int MAGIC = 0x4C534E50;
+    private static final int VERSION = 5;
+    private static final int VERSION_WITHOUT_HOLDS = 4;
+    private static final int LEGACY_VERSION = 3;
+
+    private static final int STRINGS = 0;
+    private static final int BOOKS = 1;
+    private static final int USERS = 2;
+    private static final int LOANS = 3;
+    private static final int HOLDS = 4;
+    private static final String[] SECTION_NAMES = { "textos", "libros", "usuarios", "prestamos", "reservas" };
+    private static final int HEADER_BYTES = headerBytes(SECTION_NAMES.length);
+
+    private static final int BOOK_BYTES = 12;
+    private static final int USER_BYTES = 16;
+    private static final int LOAN_BYTES = 21;
+    private static final int HOLD_BYTES = 16;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private Snapshot() {
+    }
+
+    static void write(Path file, long journalPosition, BookService bookService, UserService userService,
+            LoanService loanService) throws IOException {
+        write(file, journalPosition, capture(bookService, userService, loanService));
+    }
+
+    // Copia en memoria lo que va al archivo. Los prestamos, usuarios y reservas se copian
+    // porque los servicios los siguen editando mientras se escribe
+    static Contents capture(BookService bookService, UserService userService, LoanService loanService) {
+        var users = userService.getAllUsers();
+        users.replaceAll(User::new);
+        var loans = loanService.getLoans();
+        loans.replaceAll(Loan::new);
+        var holds = loanService.getAllHolds();
+        holds.replaceAll(hold -> new Hold(hold.getUserId(), hold.getIsbn(), hold.getPlacedDate(), hold.getExpiryDate()));
+        return new Contents(bookService.getAllBooks(), users, loans, holds);
+    }
+
+    static void write(Path file, long journalPosition, Contents contents) throws IOException {
+        var books = new ArrayList<>(contents.books);
+        var users = new ArrayList<>(contents.users);
+        var loans = contents.loans;
+        var liveBooks = books.size();
+        var liveUsers = users.size();
+
+        var bookIndex = new HashMap<String, Integer>(books.size() * 2);
+        for (var book : books) {
+            bookIndex.put(book.getIsbn(), bookIndex.size());
+        }
+        var userIndex = new HashMap<String, Integer>(users.size() * 2);
+        for (var user : users) {
+            userIndex.put(user.getId(), userIndex.size());
+        }
+
+        var loanSection = allocate(LOANS, 4, loans.size(), LOAN_BYTES);
+        loanSection.putInt(loans.size());
+        for (var loan : loans) {
+            loanSection.putInt(indexOf(bookIndex, books, loan.getBook().getIsbn(), loan.getBook()));
+            loanSection.putInt(indexOf(userIndex, users, loan.getUser().getId(), loan.getUser()));
+            loanSection.putInt(day(loan.getLoanDate()));
+            loanSection.putInt(day(loan.getDueDate()));
+            loanSection.putInt(day(loan.getReturnDate()));
+            loanSection.put((byte) loan.getState().ordinal());
+        }
+
+        var dictionary = new Dictionary();
+        var holds = contents.holds;
+        var holdSection = allocate(HOLDS, 4, holds.size(), HOLD_BYTES);
+        holdSection.putInt(holds.size());
+        for (var hold : holds) {
+            holdSection.putInt(dictionary.ref(hold.getUserId()));
+            holdSection.putInt(dictionary.ref(hold.getIsbn()));
+            holdSection.putInt(day(hold.getPlacedDate()));
+            holdSection.putInt(day(hold.getExpiryDate()));
+        }
+        var bookSection = allocate(BOOKS, 8, books.size(), BOOK_BYTES);
+        bookSection.putInt(books.size()).putInt(liveBooks);
+        for (var book : books) {
+            bookSection.putInt(dictionary.ref(book.getIsbn()));
+            bookSection.putInt(dictionary.ref(book.getTitle()));
+            bookSection.putInt(dictionary.ref(book.getAuthor()));
+        }
+        var userSection = allocate(USERS, 8, users.size(), USER_BYTES);
+        userSection.putInt(users.size()).putInt(liveUsers);
+        for (var user : users) {
+            userSection.putInt(dictionary.ref(user.getId()));
+            userSection.putInt(dictionary.ref(user.getName()));
+            userSection.putInt(dictionary.ref(user.getEmail()));
+            userSection.putInt(day(user.getRegisterDate()));
+        }
+
+        var sections = new ByteBuffer[] { dictionary.encode(), bookSection.flip(), userSection.flip(), loanSection.flip(),
+                holdSection.flip() };
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(journalPosition).putInt(sections.length);
+        long offset = HEADER_BYTES;
+        for (var section : sections) {
+            header.putLong(offset).putInt(section.remaining()).putInt(crc(section));
+            offset += section.remaining();
+        }
+        header.putInt(crc(header.duplicate().flip()));
+        header.flip();
+
+        // Se escribe aparte y se reemplaza al final: nunca queda un snapshot a medias
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffers = new ByteBuffer[sections.length + 1];
+            buffers[0] = header;
+            System.arraycopy(sections, 0, buffers, 1, sections.length);
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Devuelve la posicion de la bitacora desde la que hay que repetir registros
+    static long load(Path file, BookService bookService, UserService userService,
+            LoanService loanService) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer[] sections;
+        long journalPosition;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < 8 || header.getInt(0) != MAGIC) {
+                throw new IOException("Formato de snapshot no soportado: " + file);
+            }
+            var version = header.getInt(4);
+            if (version == LEGACY_VERSION) {
+                return loadVersion3(file, bookService, userService, loanService);
+            }
+            // La version 4 es igual pero sin la seccion de reservas
+            var count = version == VERSION ? SECTION_NAMES.length : version == VERSION_WITHOUT_HOLDS ? HOLDS : -1;
+            if (count < 0 || header.remaining() < headerBytes(count) || header.getInt(16) != count) {
+                throw new IOException("Formato de snapshot no soportado: " + file);
+            }
+            var headerBytes = headerBytes(count);
+            if (crc(header.slice(0, headerBytes - 4)) != header.getInt(headerBytes - 4)) {
+                throw new IOException("Cabecera de snapshot dañada: " + file);
+            }
+            journalPosition = header.getLong(8);
+            sections = new ByteBuffer[count];
+            for (int i = 0; i < sections.length; i++) {
+                var offset = header.getLong(20 + i * 16);
+                var length = header.getInt(28 + i * 16);
+                if (offset < headerBytes || length < 0 || offset + length > channel.size()) {
+                    throw new IOException("Seccion de " + SECTION_NAMES[i] + " fuera del archivo: " + file);
+                }
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            var checks = new int[sections.length];
+            for (int i = 0; i < sections.length; i++) {
+                checks[i] = header.getInt(32 + i * 16);
+            }
+            return restore(file, journalPosition, sections, checks, bookService, userService, loanService);
+        }
+    }
+
+    private static long restore(Path file, long journalPosition, ByteBuffer[] sections, int[] checks,
+            BookService bookService, UserService userService, LoanService loanService) throws IOException {
+        // Cada seccion se verifica por su cuenta; libros y usuarios se decodifican a la vez
+        // en cuanto esta el diccionario, y los prestamos cuando estan ambos
+        var verified = new ArrayList<CompletableFuture<ByteBuffer>>();
+        for (int i = 0; i < sections.length; i++) {
+            var index = i;
+            verified.add(CompletableFuture.supplyAsync(() -> verify(file, sections[index], checks[index], index)));
+        }
+        var strings = verified.get(STRINGS).thenApply(Snapshot::decodeStrings);
+        var books = strings.thenCombineAsync(verified.get(BOOKS), (dictionary, section) -> decodeBooks(section, dictionary));
+        var users = strings.thenCombineAsync(verified.get(USERS), (dictionary, section) -> decodeUsers(section, dictionary));
+        var loans = books.thenCombine(users, Decoded::new)
+                .thenCombineAsync(verified.get(LOANS), (decoded, section) -> decodeLoans(section, decoded));
+        var holds = sections.length > HOLDS
+                ? strings.thenCombineAsync(verified.get(HOLDS), (dictionary, section) -> decodeHolds(section, dictionary))
+                : CompletableFuture.completedFuture(List.<Hold>of());
+        try {
+            var bookList = books.join();
+            var userList = users.join();
+            var loanList = loans.join();
+            var holdList = holds.join();
+            bookService.restoreBooks(bookList.live());
+            userService.restoreUsers(userList.live());
+            for (var loan : loanList) {
+                loanService.restoreLoan(loan);
+            }
+            for (var hold : holdList) {
+                loanService.restoreHold(hold);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+        return journalPosition;
+    }
+
+    private static ByteBuffer verify(Path file, ByteBuffer section, int expected, int index) {
+        if (crc(section) != expected) {
+            throw new UncheckedIOException(new IOException(
+                    "Seccion de " + SECTION_NAMES[index] + " dañada en el snapshot: " + file));
+        }
+        return section;
+    }
+
+    private static String[] decodeStrings(ByteBuffer section) {
+        var count = section.getInt(0);
+        var base = 4 + (count + 1) * 4;
+        var strings = new String[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            var start = section.getInt(4 + i * 4);
+            var bytes = new byte[section.getInt(8 + i * 4) - start];
+            section.get(base + start, bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        });
+        return strings;
+    }
+
+    private static Decoded.Entities<Book> decodeBooks(ByteBuffer section, String[] dictionary) {
+        var books = new Book[section.getInt(0)];
+        IntStream.range(0, books.length).parallel().forEach(i -> {
+            var at = 8 + i * BOOK_BYTES;
+            books[i] = new Book(text(dictionary, section.getInt(at)), text(dictionary, section.getInt(at + 4)),
+                    text(dictionary, section.getInt(at + 8)));
+        });
+        return new Decoded.Entities<>(books, section.getInt(4));
+    }
+
+    private static Decoded.Entities<User> decodeUsers(ByteBuffer section, String[] dictionary) {
+        var users = new User[section.getInt(0)];
+        IntStream.range(0, users.length).parallel().forEach(i -> {
+            var at = 8 + i * USER_BYTES;
+            users[i] = new User(text(dictionary, section.getInt(at)), text(dictionary, section.getInt(at + 4)),
+                    text(dictionary, section.getInt(at + 8)), date(section.getInt(at + 12)));
+        });
+        return new Decoded.Entities<>(users, section.getInt(4));
+    }
+
+    private static List<Loan> decodeLoans(ByteBuffer section, Decoded decoded) {
+        var states = LoanState.values();
+        var loans = new Loan[section.getInt(0)];
+        IntStream.range(0, loans.length).parallel().forEach(i -> {
+            var at = 4 + i * LOAN_BYTES;
+            var book = decoded.books.all[section.getInt(at)];
+            var user = decoded.users.all[section.getInt(at + 4)];
+            loans[i] = new Loan(user, book, date(section.getInt(at + 8)), date(section.getInt(at + 12)),
+                    states[section.get(at + 20)], date(section.getInt(at + 16)));
+        });
+        return Arrays.asList(loans);
+    }
+
+    private static List<Hold> decodeHolds(ByteBuffer section, String[] dictionary) {
+        var holds = new Hold[section.getInt(0)];
+        IntStream.range(0, holds.length).parallel().forEach(i -> {
+            var at = 4 + i * HOLD_BYTES;
+            holds[i] = new Hold(text(dictionary, section.getInt(at)), text(dictionary, section.getInt(at + 4)),
+                    date(section.getInt(at + 8)), date(section.getInt(at + 12)));
+        });
+        return Arrays.asList(holds);
+    }
+
+    // Formato anterior: un flujo con los registros completos, prestamo por prestamo
+    private static long loadVersion3(Path file, BookService bookService, UserService userService,
+            LoanService loanService) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            in.readInt();
+            in.readInt();
+            var journalPosition = in.readLong();
+
+            var books = in.readInt();
+            for (int i = 0; i < books; i++) {
+                bookService.addBook(readString(in), readString(in), readString(in));
+            }
+            var users = in.readInt();
+            for (int i = 0; i < users; i++) {
+                var user = readUser(in);
+                userService.addUser(user.getId(), user.getName(), user.getEmail(), user.getRegisterDate());
+            }
+            var loans = in.readInt();
+            var states = LoanState.values();
+            for (int i = 0; i < loans; i++) {
+                var user = resolve(userService, readUser(in));
+                var book = resolve(bookService, readBook(in));
+                var loanDate = LocalDate.ofEpochDay(in.readLong());
+                var state = states[in.readByte()];
+                var returnDate = readDate(in);
+                var dueDate = readDate(in);
+                loanService.restoreLoan(new Loan(user, book, loanDate, dueDate, state, returnDate));
+            }
+            return journalPosition;
+        }
+    }
+
+    // Los prestamos comparten la instancia del servicio; si ya fue borrado se usa la copia guardada
+    private static User resolve(UserService userService, User saved) {
+        try {
+            return userService.getUserById(saved.getId());
+        } catch (NotFoundException e) {
+            return saved;
+        }
+    }
+
+    private static Book resolve(BookService bookService, Book saved) {
+        try {
+            return bookService.getBookByIsbn(saved.getIsbn());
+        } catch (NotFoundException e) {
+            return saved;
+        }
+    }
+
+    private static Book readBook(DataInputStream in) throws IOException {
+        return new Book(readString(in), readString(in), readString(in));
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        return new User(readString(in), readString(in), readString(in), LocalDate.ofEpochDay(in.readLong()));
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        var day = in.readLong();
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // [magic][version][posicion][secciones], 16 bytes por seccion y el crc
+    private static int headerBytes(int sections) {
+        return 20 + sections * 16 + 4;
+    }
+
+    // Cada seccion es un ByteBuffer, asi que no puede pasar de 2 GB
+    private static ByteBuffer allocate(int section, int headerBytes, int count, int recordBytes) {
+        var size = headerBytes + (long) count * recordBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La seccion de " + SECTION_NAMES[section] + " del snapshot supera 2 GB");
+        }
+        return ByteBuffer.allocate((int) size);
+    }
+
+    private static <T> int indexOf(Map<String, Integer> index, List<T> entities, String key, T entity) {
+        var position = index.get(key);
+        if (position == null) {
+            position = entities.size();
+            entities.add(entity);
+            index.put(key, position);
+        }
+        return position;
+    }
+
+    private static String text(String[] dictionary, int ref) {
+        return ref < 0 ? null : dictionary[ref];
+    }
+
+    private static int day(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate date(int day) {
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        var crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    static final class Contents {
+
+        private final List<Book> books;
+        private final List<User> users;
+        private final List<Loan> loans;
+        private final List<Hold> holds;
+
+        private Contents(List<Book> books, List<User> users, List<Loan> loans, List<Hold> holds) {
+            this.books = books;
+            this.users = users;
+            this.loans = loans;
+            this.holds = holds;
+        }
+    }
+
+    // Textos en el orden en que aparecen por primera vez, cada uno una sola vez
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            var id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        ByteBuffer encode() {
+            var encoded = values.parallelStream().map(value -> value.getBytes(StandardCharsets.UTF_8)).toList();
+            var bytes = 0L;
+            for (var value : encoded) {
+                bytes += value.length;
+            }
+            var size = 4 + (encoded.size() + 1) * 4L + bytes;
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("El diccionario del snapshot supera 2 GB");
+            }
+            var buffer = ByteBuffer.allocate((int) size);
+            buffer.putInt(encoded.size());
+            var offset = 0;
+            buffer.putInt(offset);
+            for (var value : encoded) {
+                offset += value.length;
+                buffer.putInt(offset);
+            }
+            for (var value : encoded) {
+                buffer.put(value);
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static final class Decoded {
+
+        private final Entities<Book> books;
+        private final Entities<User> users;
+
+        Decoded(Entities<Book> books, Entities<User> users) {
+            this.books = books;
+            this.users = users;
+        }
+
+        private static final class Entities<T> {
+
+            private final T[] all;
+            private final int live;
+
+            Entities(T[] all, int live) {
+                this.all = all;
+                this.live = live;
+            }
+
+            List<T> live() {
+                return Arrays.asList(all).subList(0, live);
+            }
+        }
+    }
+}
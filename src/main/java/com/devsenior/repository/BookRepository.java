@@ -0,0 +1,39 @@
+package com.devsenior.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.devsenior.model.Book;
+
+// Almacenamiento del catalogo detras de BookService
+public interface BookRepository {
+
+    // Devuelve el libro tal como quedo guardado, o null si ya existe uno con el mismo isbn
+    Book add(Book book);
+
+    // Agrega un lote en un solo paso y devuelve los libros guardados (los repetidos se omiten)
+    List<Book> addAll(Collection<Book> books);
+
+    // Devuelve null si no existe
+    Book get(String isbn);
+
+    boolean contains(String isbn);
+
+    // Devuelve el libro borrado o null si no existe
+    Book remove(String isbn);
+
+    int size();
+
+    // Permite descartar en la carga masiva los isbn que el almacenamiento no puede guardar
+    default boolean accepts(String isbn) {
+        return true;
+    }
+
+    // Forma en que el almacenamiento guarda el isbn (la que traen los libros devueltos).
+    // Quien indexe por isbn debe usar esta forma para no separar un mismo libro
+    default String canonicalIsbn(String isbn) {
+        return isbn;
+    }
+
+    List<Book> findAll();
+}
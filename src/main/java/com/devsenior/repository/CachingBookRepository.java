@@ -0,0 +1,89 @@
+package com.devsenior.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.devsenior.cache.CacheStats;
+import com.devsenior.cache.WTinyLfuCache;
+import com.devsenior.model.Book;
+
+/*
+ * Cache de lectura delante de un almacenamiento lento (por ejemplo FileBookRepository).
+ * get y contains se sirven desde el cache; los isbn inexistentes tambien se guardan para
+ * no volver a consultar el almacenamiento por ellos. Las escrituras van directo al
+ * almacenamiento e invalidan la entrada correspondiente. Las claves del cache son el isbn
+ * en su forma canonica, para que dos escrituras del mismo libro no queden separadas.
+ */
+public class CachingBookRepository implements BookRepository {
+
+    private final BookRepository storage;
+    private final WTinyLfuCache<String, Book> cache;
+
+    public CachingBookRepository(BookRepository storage, int maximumSize) {
+        this.storage = storage;
+        this.cache = new WTinyLfuCache<>(maximumSize);
+    }
+
+    @Override
+    public Book add(Book book) {
+        try {
+            return storage.add(book);
+        } finally {
+            cache.invalidate(storage.canonicalIsbn(book.getIsbn()));
+        }
+    }
+
+    @Override
+    public List<Book> addAll(Collection<Book> books) {
+        try {
+            return storage.addAll(books);
+        } finally {
+            for (var book : books) {
+                cache.invalidate(storage.canonicalIsbn(book.getIsbn()));
+            }
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        return cache.get(storage.canonicalIsbn(isbn), storage::get);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return get(isbn) != null;
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        try {
+            return storage.remove(isbn);
+        } finally {
+            cache.invalidate(storage.canonicalIsbn(isbn));
+        }
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public boolean accepts(String isbn) {
+        return storage.accepts(isbn);
+    }
+
+    @Override
+    public String canonicalIsbn(String isbn) {
+        return storage.canonicalIsbn(isbn);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return storage.findAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,247 @@
+package com.devsenior.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.devsenior.model.Book;
+import com.devsenior.model.Isbn;
+
+/*
+ * Catalogo compacto: el isbn se guarda como long (ver Isbn) en una tabla hash de
+ * direccionamiento abierto y el titulo y el autor en arreglos paralelos. No hay un
+ * objeto Book ni un String de isbn por libro; el Book se arma al consultarlo.
+ *
+ * Solo acepta ISBN-10/13 validos y los libros devueltos traen el ISBN-13 sin guiones.
+ * Los arreglos se comparten entre lectores y el escritor con un ReadWriteLock.
+ */
+public class CompactBookRepository implements BookRepository {
+
+    private static final long EMPTY = 0;
+
+    // Tabla hash con sondeo lineal: isbn -> posicion en los arreglos paralelos
+    private long[] keys;
+    private int[] positions;
+    private int mask;
+
+    private long[] isbns;
+    private String[] titles;
+    private String[] authors;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CompactBookRepository() {
+        this(16);
+    }
+
+    public CompactBookRepository(int expectedBooks) {
+        allocate(Math.max(16, expectedBooks));
+    }
+
+    @Override
+    public Book add(Book book) {
+        lock.writeLock().lock();
+        try {
+            var isbn = Isbn.parse(book.getIsbn());
+            if (find(isbn) >= 0) {
+                return null;
+            }
+            ensureCapacity(size + 1);
+            insert(isbn, book.getTitle(), book.getAuthor());
+            return view(size - 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> addAll(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            // Se valida todo el lote antes de tocar la tabla
+            var parsed = new long[books.size()];
+            var i = 0;
+            for (var book : books) {
+                parsed[i++] = Isbn.parse(book.getIsbn());
+            }
+            ensureCapacity(size + books.size());
+            var added = new ArrayList<Book>(books.size());
+            i = 0;
+            for (var book : books) {
+                var isbn = parsed[i++];
+                if (find(isbn) < 0) {
+                    insert(isbn, book.getTitle(), book.getAuthor());
+                    added.add(view(size - 1));
+                }
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        lock.readLock().lock();
+        try {
+            var slot = find(Isbn.tryParse(isbn));
+            return slot < 0 ? null : view(positions[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return find(Isbn.tryParse(isbn)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            var slot = find(Isbn.tryParse(isbn));
+            if (slot < 0) {
+                return null;
+            }
+            var position = positions[slot];
+            var book = view(position);
+            deleteSlot(slot);
+
+            // El ultimo registro ocupa el hueco para que los arreglos sigan densos
+            var last = size - 1;
+            if (position != last) {
+                isbns[position] = isbns[last];
+                titles[position] = titles[last];
+                authors[position] = authors[last];
+                positions[find(isbns[position])] = position;
+            }
+            titles[last] = null;
+            authors[last] = null;
+            size--;
+            return book;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean accepts(String isbn) {
+        return Isbn.tryParse(isbn) > 0;
+    }
+
+    // ISBN-13 sin guiones; los isbn invalidos se dejan como vienen
+    @Override
+    public String canonicalIsbn(String isbn) {
+        return Isbn.canonical(isbn);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        lock.readLock().lock();
+        try {
+            var books = new ArrayList<Book>(size);
+            for (int i = 0; i < size; i++) {
+                books.add(view(i));
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Book view(int position) {
+        return new Book(Isbn.format(isbns[position]), titles[position], authors[position]);
+    }
+
+    private int find(long isbn) {
+        if (isbn <= 0) {
+            return -1;
+        }
+        var slot = hash(isbn) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == isbn) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long isbn, String title, String author) {
+        var slot = hash(isbn) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = isbn;
+        positions[slot] = size;
+        isbns[size] = isbn;
+        titles[size] = title;
+        authors[size] = author;
+        size++;
+    }
+
+    // Borrado con desplazamiento hacia atras: no deja marcas de borrado en la tabla
+    private void deleteSlot(int slot) {
+        var hole = slot;
+        var next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            var ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                positions[hole] = positions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= isbns.length) {
+            return;
+        }
+        var oldIsbns = isbns;
+        var oldTitles = titles;
+        var oldAuthors = authors;
+        var oldSize = size;
+        allocate(Math.max(needed, isbns.length * 2));
+        for (int i = 0; i < oldSize; i++) {
+            insert(oldIsbns[i], oldTitles[i], oldAuthors[i]);
+        }
+    }
+
+    // La tabla se mantiene a lo sumo a la mitad de su capacidad
+    private void allocate(int capacity) {
+        var tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        keys = new long[tableSize];
+        positions = new int[tableSize];
+        mask = tableSize - 1;
+        isbns = new long[capacity];
+        titles = new String[capacity];
+        authors = new String[capacity];
+        size = 0;
+    }
+
+    private static int hash(long isbn) {
+        var h = isbn * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
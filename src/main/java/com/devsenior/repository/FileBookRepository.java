@@ -0,0 +1,431 @@
+package com.devsenior.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.devsenior.model.Book;
+
+/*
+ * Catalogo en un archivo local de solo agregado. En memoria solo queda el indice
+ * isbn -> posicion: dos arreglos de long (hash completo y posicion), unos 32 bytes por
+ * libro, asi el catalogo puede ser mayor que la RAM. Cada get lee el registro del
+ * archivo, por eso conviene ponerle delante un CachingBookRepository.
+ *
+ * Registro: [vivo u8][isbn len u16][titulo len u16][autor len u16][isbn][titulo][autor].
+ * Borrar marca el registro como muerto; el espacio no se recupera. Al abrir se recorre
+ * el archivo para reconstruir el indice y se descarta un registro final incompleto.
+ */
+public class FileBookRepository implements BookRepository, AutoCloseable {
+
+    private static final int HEADER = 7;
+    private static final int MAX_FIELD = 0xFFFF;
+    private static final int SCAN_BUFFER = 1 << 20;
+
+    private final FileChannel channel;
+    private long end;
+
+    private long[] hashes;
+    private long[] offsets;
+    private int mask;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileBookRepository(FileChannel channel) {
+        this.channel = channel;
+        allocateIndex(16);
+    }
+
+    public static FileBookRepository open(Path file) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        var repository = new FileBookRepository(channel);
+        try {
+            repository.rebuildIndex();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return repository;
+    }
+
+    @Override
+    public Book add(Book book) {
+        lock.writeLock().lock();
+        try {
+            return insert(book) ? book : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> addAll(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + books.size());
+            var added = new ArrayList<Book>(books.size());
+            for (var book : books) {
+                if (insert(book)) {
+                    added.add(book);
+                }
+            }
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        lock.readLock().lock();
+        try {
+            var bytes = isbn.getBytes(StandardCharsets.UTF_8);
+            var hash = hash(bytes);
+            // El registro leido sirve tambien para confirmar el isbn: una sola lectura por candidato
+            for (var slot = (int) hash & mask; offsets[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash) {
+                    var record = readRecord(offsets[slot] - 1);
+                    if (record.getChar(1) == bytes.length
+                            && record.slice(HEADER, bytes.length).equals(ByteBuffer.wrap(bytes))) {
+                        return decode(record);
+                    }
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return find(isbn.getBytes(StandardCharsets.UTF_8)) >= 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            var slot = find(isbn.getBytes(StandardCharsets.UTF_8));
+            if (slot < 0) {
+                return null;
+            }
+            var offset = offsets[slot] - 1;
+            var book = read(offset);
+            writeFully(ByteBuffer.wrap(new byte[] { 0 }), offset);
+            deleteSlot(slot);
+            size--;
+            return book;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recorre el archivo completo; pensado para exportar, no para consultas frecuentes
+    @Override
+    public List<Book> findAll() {
+        lock.readLock().lock();
+        try {
+            var books = new ArrayList<Book>(size);
+            scan((offset, live, record) -> {
+                if (live) {
+                    books.add(decode(record));
+                }
+            });
+            return books;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Fuerza a disco lo escrito hasta ahora
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    public long getFileBytes() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean insert(Book book) throws IOException {
+        var isbn = encode(book.getIsbn());
+        var hash = hash(isbn);
+        if (find(isbn, hash) >= 0) {
+            return false;
+        }
+        var title = encode(book.getTitle());
+        var author = encode(book.getAuthor());
+        var record = ByteBuffer.allocate(HEADER + isbn.length + title.length + author.length);
+        record.put((byte) 1)
+                .putChar((char) isbn.length)
+                .putChar((char) title.length)
+                .putChar((char) author.length)
+                .put(isbn)
+                .put(title)
+                .put(author)
+                .flip();
+        var offset = end;
+        writeFully(record, offset);
+        end += record.capacity();
+        ensureCapacity(size + 1);
+        place(hash, offset);
+        size++;
+        return true;
+    }
+
+    private void rebuildIndex() throws IOException {
+        var valid = scan((offset, live, record) -> {
+            if (live) {
+                var isbn = new byte[record.getChar(1)];
+                record.get(HEADER, isbn);
+                ensureCapacity(size + 1);
+                place(hash(isbn), offset);
+                size++;
+            }
+        });
+        end = valid;
+        if (channel.size() > valid) {
+            // Registro final a medio escribir (por ejemplo, un corte durante add)
+            channel.truncate(valid);
+        }
+    }
+
+    // Recorre los registros completos del archivo y devuelve donde termina el ultimo
+    private long scan(RecordVisitor visitor) throws IOException {
+        var length = channel.size();
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        buffer.limit(0);
+        var position = 0L;
+        var offset = 0L;
+        while (true) {
+            if (buffer.remaining() < HEADER || buffer.remaining() < recordLength(buffer)) {
+                buffer.compact();
+                var read = position < length ? channel.read(buffer, position) : -1;
+                buffer.flip();
+                if (read <= 0) {
+                    return offset;
+                }
+                position += read;
+                continue;
+            }
+            var recordLength = recordLength(buffer);
+            var record = buffer.slice(buffer.position(), recordLength);
+            visitor.visit(offset, record.get(0) != 0, record);
+            buffer.position(buffer.position() + recordLength);
+            offset += recordLength;
+        }
+    }
+
+    private static int recordLength(ByteBuffer buffer) {
+        var at = buffer.position();
+        return HEADER + buffer.getChar(at + 1) + buffer.getChar(at + 3) + buffer.getChar(at + 5);
+    }
+
+    private Book read(long offset) throws IOException {
+        return decode(readRecord(offset));
+    }
+
+    // Lee de una vez los primeros bytes; solo los registros largos necesitan una segunda lectura
+    private ByteBuffer readRecord(long offset) throws IOException {
+        var head = ByteBuffer.allocate(256);
+        while (head.position() < HEADER) {
+            if (channel.read(head, offset + head.position()) < 0) {
+                throw new IOException("Fin de archivo inesperado en el catalogo, posicion " + offset);
+            }
+        }
+        head.flip();
+        var length = recordLength(head);
+        if (length <= head.limit()) {
+            return head.limit(length);
+        }
+        var record = ByteBuffer.allocate(length);
+        record.put(head);
+        readFully(record, offset + record.position());
+        return record.flip();
+    }
+
+    private static Book decode(ByteBuffer record) {
+        int isbnLength = record.getChar(1);
+        int titleLength = record.getChar(3);
+        int authorLength = record.getChar(5);
+        var bytes = new byte[isbnLength + titleLength + authorLength];
+        record.get(HEADER, bytes);
+        return new Book(new String(bytes, 0, isbnLength, StandardCharsets.UTF_8),
+                new String(bytes, isbnLength, titleLength, StandardCharsets.UTF_8),
+                new String(bytes, isbnLength + titleLength, authorLength, StandardCharsets.UTF_8));
+    }
+
+    private boolean isbnEquals(long offset, byte[] isbn) throws IOException {
+        var header = readFully(offset, HEADER);
+        if (header.getChar(1) != isbn.length) {
+            return false;
+        }
+        return Arrays.equals(readFully(offset + HEADER, isbn.length).array(), isbn);
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        readFully(buffer, offset);
+        return buffer.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Fin de archivo inesperado en el catalogo, posicion " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private int find(byte[] isbn) throws IOException {
+        return find(isbn, hash(isbn));
+    }
+
+    // Se compara el hash completo y solo ante coincidencia se lee el isbn del archivo
+    private int find(byte[] isbn, long hash) throws IOException {
+        var slot = (int) hash & mask;
+        while (offsets[slot] != 0) {
+            if (hashes[slot] == hash && isbnEquals(offsets[slot] - 1, isbn)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void place(long hash, long offset) {
+        var slot = (int) hash & mask;
+        while (offsets[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        offsets[slot] = offset + 1;
+    }
+
+    // Borrado con desplazamiento hacia atras, igual que en CompactBookRepository
+    private void deleteSlot(int slot) {
+        var hole = slot;
+        var next = (hole + 1) & mask;
+        while (offsets[next] != 0) {
+            var ideal = (int) hashes[next] & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                hashes[hole] = hashes[next];
+                offsets[hole] = offsets[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        hashes[hole] = 0;
+        offsets[hole] = 0;
+    }
+
+    // El indice se mantiene a lo sumo a la mitad de su capacidad
+    private void ensureCapacity(int needed) {
+        if ((long) needed * 2 <= mask + 1) {
+            return;
+        }
+        var oldHashes = hashes;
+        var oldOffsets = offsets;
+        allocateIndex(needed);
+        for (int slot = 0; slot < oldOffsets.length; slot++) {
+            if (oldOffsets[slot] != 0) {
+                place(oldHashes[slot], oldOffsets[slot] - 1);
+            }
+        }
+    }
+
+    private void allocateIndex(int capacity) {
+        var slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        hashes = new long[slots];
+        offsets = new long[slots];
+        mask = slots - 1;
+    }
+
+    private static byte[] encode(String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD) {
+            throw new IllegalArgumentException("Campo demasiado largo para el catalogo: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    // FNV-1a sobre los bytes del isbn, como en OffHeapBookRepository
+    private static long hash(byte[] isbn) {
+        var h = 0xcbf29ce484222325L;
+        for (var b : isbn) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private interface RecordVisitor {
+
+        void visit(long offset, boolean live, ByteBuffer record) throws IOException;
+    }
+}
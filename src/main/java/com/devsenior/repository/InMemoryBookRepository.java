@@ -0,0 +1,85 @@
+package com.devsenior.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.devsenior.model.Book;
+
+// Lecturas concurrentes sin bloqueo; se asume un solo escritor a la vez (BookService).
+// El mapa resuelve las busquedas por isbn y la secuencia guarda el orden de llegada, que
+// es el que devuelve findAll
+public class InMemoryBookRepository implements BookRepository {
+
+    private final Map<String, Entry> books = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Book> bySequence = new ConcurrentSkipListMap<>();
+    // Solo lo toca el escritor
+    private long nextSequence;
+
+    @Override
+    public Book add(Book book) {
+        var entry = new Entry(nextSequence, book);
+        if (books.putIfAbsent(book.getIsbn(), entry) != null) {
+            return null;
+        }
+        bySequence.put(nextSequence++, book);
+        return book;
+    }
+
+    // Cada elemento del lote se agrega en su lugar, sin copiar lo que ya estaba guardado
+    @Override
+    public List<Book> addAll(Collection<Book> batch) {
+        var added = new ArrayList<Book>(batch.size());
+        for (var book : batch) {
+            if (add(book) != null) {
+                added.add(book);
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        var entry = books.get(isbn);
+        return entry == null ? null : entry.book;
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return books.containsKey(isbn);
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        var entry = books.remove(isbn);
+        if (entry == null) {
+            return null;
+        }
+        bySequence.remove(entry.sequence);
+        return entry.book;
+    }
+
+    @Override
+    public int size() {
+        return books.size();
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return new ArrayList<>(bySequence.values());
+    }
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final Book book;
+
+        Entry(long sequence, Book book) {
+            this.sequence = sequence;
+            this.book = book;
+        }
+    }
+}
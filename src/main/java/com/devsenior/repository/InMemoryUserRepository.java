@@ -0,0 +1,90 @@
+package com.devsenior.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.devsenior.model.User;
+
+// Lecturas concurrentes sin bloqueo; se asume un solo escritor a la vez (UserService).
+// El mapa resuelve las busquedas por id y la secuencia guarda el orden de llegada, que
+// es el que devuelve findAll
+public class InMemoryUserRepository implements UserRepository {
+
+    private final Map<String, Entry> users = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, User> bySequence = new ConcurrentSkipListMap<>();
+    // Solo lo toca el escritor
+    private long nextSequence;
+
+    @Override
+    public User add(User user) {
+        var entry = new Entry(nextSequence, user);
+        if (users.putIfAbsent(user.getId(), entry) != null) {
+            return null;
+        }
+        bySequence.put(nextSequence++, user);
+        return user;
+    }
+
+    // Cada elemento del lote se agrega en su lugar, sin copiar lo que ya estaba guardado
+    @Override
+    public List<User> addAll(Collection<User> batch) {
+        var added = new ArrayList<User>(batch.size());
+        for (var user : batch) {
+            if (add(user) != null) {
+                added.add(user);
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public User get(String id) {
+        var entry = users.get(id);
+        return entry == null ? null : entry.user;
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return users.containsKey(id);
+    }
+
+    // Los usuarios se guardan por referencia: el cambio ya esta aplicado
+    @Override
+    public void update(User user) {
+    }
+
+    @Override
+    public User remove(String id) {
+        var entry = users.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        bySequence.remove(entry.sequence);
+        return entry.user;
+    }
+
+    @Override
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(bySequence.values());
+    }
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final User user;
+
+        Entry(long sequence, User user) {
+            this.sequence = sequence;
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.devsenior.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.devsenior.model.Book;
+import com.devsenior.model.Loan;
+import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+
+/*
+ * Historial de prestamos terminados guardado por columnas. Cada usuario y cada libro
+ * se guarda una sola vez en un diccionario y los prestamos son solo enteros: codigo
+ * de usuario, codigo de libro y fechas de prestamo, vencimiento y devolucion en dias
+ * desde la epoca.
+ * Los objetos Loan se arman al consultar.
+ *
+ * El historial se reparte en franjas por id de usuario. Agregar solo bloquea la franja
+ * del usuario, y lo que hace dentro es O(1). Las filas van en bloques de tamaño fijo que
+ * nunca se mueven y cada franja publica su tamaño en un campo volatile despues de
+ * escribir la fila, asi que las consultas no bloquean: leen hasta el tamaño publicado y
+ * arman los Loan sin frenar a nadie. findAll devuelve las filas franja por franja; las
+ * de un mismo usuario quedan en el orden en que se agregaron.
+ */
+public class LoanHistory implements LoanRepository {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    public LoanHistory() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void add(Loan loan) {
+        stripeFor(loan.getUser().getId()).add(loan);
+    }
+
+    @Override
+    public List<Loan> findByUserId(String id) {
+        return stripeFor(id).findByUserId(id);
+    }
+
+    @Override
+    public List<Loan> findAll() {
+        var loans = new ArrayList<Loan>(size());
+        for (var stripe : stripes) {
+            stripe.findAll(loans);
+        }
+        return loans;
+    }
+
+    @Override
+    public int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String userId) {
+        return stripes[(userId.hashCode() * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+
+    private static int toDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate fromDay(int day) {
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static final class Stripe {
+
+        // Cinco enteros por fila: usuario, libro, prestamo, vencimiento y devolucion
+        private static final int ROW_INTS = 5;
+        private static final int CHUNK_BITS = 10;
+        private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, UserRows> usersById = new ConcurrentHashMap<>();
+        private final Chunks<UserRows> usersByCode = new Chunks<>();
+        // Solo lo usa quien agrega, con el bloqueo tomado
+        private final Map<String, Integer> bookCodes = new HashMap<>();
+        private final Chunks<Book> books = new Chunks<>();
+        private volatile int[][] rows = new int[0][];
+        private volatile int size;
+
+        void add(Loan loan) {
+            lock.lock();
+            try {
+                var user = encodeUser(loan.getUser());
+                var book = encodeBook(loan.getBook());
+                var row = size;
+                if ((row & (CHUNK_ROWS - 1)) == 0) {
+                    var grown = Arrays.copyOf(rows, rows.length + 1);
+                    grown[rows.length] = new int[CHUNK_ROWS * ROW_INTS];
+                    rows = grown;
+                }
+                var chunk = rows[row >>> CHUNK_BITS];
+                var at = (row & (CHUNK_ROWS - 1)) * ROW_INTS;
+                chunk[at] = user.code;
+                chunk[at + 1] = book;
+                chunk[at + 2] = toDay(loan.getLoanDate());
+                chunk[at + 3] = toDay(loan.getDueDate());
+                chunk[at + 4] = toDay(loan.getReturnDate());
+                user.add(row);
+                // Publica la fila: quien lea este tamaño ve todo lo escrito antes
+                size = row + 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Loan> findByUserId(String id) {
+            var user = usersById.get(id);
+            if (user == null) {
+                return new ArrayList<>();
+            }
+            var count = user.count;
+            var userRows = user.rows;
+            var chunks = rows;
+            var loans = new ArrayList<Loan>(count);
+            for (int i = 0; i < count; i++) {
+                loans.add(loan(chunks, userRows[i]));
+            }
+            return loans;
+        }
+
+        void findAll(List<Loan> loans) {
+            var count = size;
+            var chunks = rows;
+            for (int row = 0; row < count; row++) {
+                loans.add(loan(chunks, row));
+            }
+        }
+
+        private Loan loan(int[][] chunks, int row) {
+            var chunk = chunks[row >>> CHUNK_BITS];
+            var at = (row & (CHUNK_ROWS - 1)) * ROW_INTS;
+            return new Loan(usersByCode.get(chunk[at]).user, books.get(chunk[at + 1]),
+                    fromDay(chunk[at + 2]), fromDay(chunk[at + 3]), LoanState.FINISHED, fromDay(chunk[at + 4]));
+        }
+
+        private UserRows encodeUser(User user) {
+            var rows = usersById.get(user.getId());
+            if (rows == null) {
+                rows = new UserRows(usersById.size(), user);
+                usersByCode.set(rows.code, rows);
+                usersById.put(user.getId(), rows);
+            } else {
+                // Se conserva la version mas reciente del usuario
+                rows.user = user;
+            }
+            return rows;
+        }
+
+        private int encodeBook(Book book) {
+            var code = bookCodes.get(book.getIsbn());
+            if (code == null) {
+                code = bookCodes.size();
+                bookCodes.put(book.getIsbn(), code);
+            }
+            books.set(code, book);
+            return code;
+        }
+    }
+
+    // Filas de un usuario. Se publica count despues de rows, asi que quien lee count
+    // primero siempre encuentra esas filas en rows
+    private static final class UserRows {
+
+        private final int code;
+        private volatile User user;
+        private volatile int[] rows = new int[4];
+        private volatile int count;
+
+        UserRows(int code, User user) {
+            this.code = code;
+            this.user = user;
+        }
+
+        void add(int row) {
+            var current = rows;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+                rows = current;
+            }
+            current[count] = row;
+            count = count + 1;
+        }
+    }
+
+    // Arreglo por bloques que solo crece; lo que se lee esta publicado por el tamaño de la franja
+    private static final class Chunks<T> {
+
+        private static final int BITS = 10;
+        private static final int SIZE = 1 << BITS;
+
+        private volatile Object[][] chunks = new Object[0][];
+
+        void set(int index, T value) {
+            var current = chunks;
+            var chunk = index >>> BITS;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, chunk + 1);
+                current[chunk] = new Object[SIZE];
+                chunks = current;
+            }
+            current[chunk][index & (SIZE - 1)] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) chunks[index >>> BITS][index & (SIZE - 1)];
+        }
+    }
+}
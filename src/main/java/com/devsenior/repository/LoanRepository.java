@@ -0,0 +1,19 @@
+package com.devsenior.repository;
+
+import java.util.List;
+
+import com.devsenior.model.Loan;
+
+// Almacenamiento de los prestamos terminados detras de LoanService; los activos se
+// mantienen siempre en memoria
+public interface LoanRepository {
+
+    void add(Loan loan);
+
+    // Lista nueva que quien llama puede modificar
+    List<Loan> findByUserId(String id);
+
+    List<Loan> findAll();
+
+    int size();
+}
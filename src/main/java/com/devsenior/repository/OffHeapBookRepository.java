@@ -0,0 +1,364 @@
+package com.devsenior.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.devsenior.model.Book;
+
+/*
+ * Catalogo fuera del heap: isbn, titulo y autor se guardan en UTF-8 en bloques de
+ * ByteBuffer directos y el indice isbn -> registro es una tabla hash de sondeo lineal
+ * tambien directa. El GC solo ve unos pocos objetos grandes sin importar el numero de
+ * libros; los Book se crean al consultarlos.
+ *
+ * Registro: [isbn len u16][titulo len u16][autor len u16][isbn][titulo][autor].
+ * Cada casilla de la tabla es un long: 24 bits del hash para descartar rapido y 40
+ * bits de direccion (+1, 0 es casilla vacia). Los registros borrados dejan hueco en
+ * los bloques y se compactan cuando el espacio perdido supera al usado.
+ *
+ * BookService debe crearse sin indices secundarios (ver BookService(BookRepository,
+ * boolean)) para que el catalogo no vuelva a quedar en el heap a traves de ellos.
+ */
+public class OffHeapBookRepository implements BookRepository {
+
+    private static final int CHUNK_BITS = 26;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int HEADER = 6;
+    private static final int MAX_FIELD = 0xFFFF;
+    private static final long ADDRESS_MASK = (1L << 40) - 1;
+    private static final long EMPTY = 0;
+    // Un ByteBuffer no pasa de 2 GB: 2^27 casillas de 8 bytes
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private long used;
+    private long garbage;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OffHeapBookRepository() {
+        this(16);
+    }
+
+    public OffHeapBookRepository(int expectedBooks) {
+        allocateTable(Math.max(16, expectedBooks));
+    }
+
+    @Override
+    public Book add(Book book) {
+        lock.writeLock().lock();
+        try {
+            return insert(book) ? book : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> addAll(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + books.size());
+            var added = new ArrayList<Book>(books.size());
+            for (var book : books) {
+                if (insert(book)) {
+                    added.add(book);
+                }
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        lock.readLock().lock();
+        try {
+            var slot = find(isbn.getBytes(StandardCharsets.UTF_8));
+            return slot < 0 ? null : view(address(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return find(isbn.getBytes(StandardCharsets.UTF_8)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            var slot = find(isbn.getBytes(StandardCharsets.UTF_8));
+            if (slot < 0) {
+                return null;
+            }
+            var address = address(slot);
+            var book = view(address);
+            garbage += recordLength(address);
+            deleteSlot(slot);
+            size--;
+            if (garbage > CHUNK_SIZE && garbage > used - garbage) {
+                compact();
+            }
+            return book;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> findAll() {
+        lock.readLock().lock();
+        try {
+            var books = new ArrayList<Book>(size);
+            for (int slot = 0; slot <= mask; slot++) {
+                if (table.getLong(slot * 8) != EMPTY) {
+                    books.add(view(address(slot)));
+                }
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes reservados fuera del heap (bloques de datos e indice)
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * CHUNK_SIZE + table.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean insert(Book book) {
+        var isbn = encode(book.getIsbn());
+        var hash = hash(isbn);
+        if (find(isbn, hash) >= 0) {
+            return false;
+        }
+        ensureCapacity(size + 1);
+        var address = write(isbn, encode(book.getTitle()), encode(book.getAuthor()));
+        place(hash, address);
+        size++;
+        return true;
+    }
+
+    private long write(byte[] isbn, byte[] title, byte[] author) {
+        var length = HEADER + isbn.length + title.length + author.length;
+        var end = (long) chunks.size() << CHUNK_BITS;
+        if (used + length > end) {
+            // Un registro nunca cruza de un bloque a otro; lo que sobra del bloque lleno
+            // (nada si termino justo en el borde) cuenta como espacio perdido
+            garbage += end - used;
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+            used = end;
+        }
+        var offset = (int) (used & (CHUNK_SIZE - 1));
+        var chunk = chunks.get((int) (used >>> CHUNK_BITS));
+        chunk.putChar(offset, (char) isbn.length);
+        chunk.putChar(offset + 2, (char) title.length);
+        chunk.putChar(offset + 4, (char) author.length);
+        chunk.put(offset + HEADER, isbn);
+        chunk.put(offset + HEADER + isbn.length, title);
+        chunk.put(offset + HEADER + isbn.length + title.length, author);
+        var address = used;
+        used += length;
+        return address;
+    }
+
+    private Book view(long address) {
+        var chunk = chunks.get((int) (address >>> CHUNK_BITS));
+        var offset = (int) (address & (CHUNK_SIZE - 1));
+        int isbnLength = chunk.getChar(offset);
+        int titleLength = chunk.getChar(offset + 2);
+        int authorLength = chunk.getChar(offset + 4);
+        var bytes = new byte[isbnLength + titleLength + authorLength];
+        chunk.get(offset + HEADER, bytes);
+        return new Book(new String(bytes, 0, isbnLength, StandardCharsets.UTF_8),
+                new String(bytes, isbnLength, titleLength, StandardCharsets.UTF_8),
+                new String(bytes, isbnLength + titleLength, authorLength, StandardCharsets.UTF_8));
+    }
+
+    private int recordLength(long address) {
+        var chunk = chunks.get((int) (address >>> CHUNK_BITS));
+        var offset = (int) (address & (CHUNK_SIZE - 1));
+        return HEADER + chunk.getChar(offset) + chunk.getChar(offset + 2) + chunk.getChar(offset + 4);
+    }
+
+    // Compara el isbn buscado con el del registro sin crear objetos
+    private boolean isbnEquals(long address, byte[] isbn) {
+        var chunk = chunks.get((int) (address >>> CHUNK_BITS));
+        var offset = (int) (address & (CHUNK_SIZE - 1));
+        if (chunk.getChar(offset) != isbn.length) {
+            return false;
+        }
+        for (int i = 0; i < isbn.length; i++) {
+            if (chunk.get(offset + HEADER + i) != isbn[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long storedHash(long address) {
+        var chunk = chunks.get((int) (address >>> CHUNK_BITS));
+        var offset = (int) (address & (CHUNK_SIZE - 1));
+        var h = 0xcbf29ce484222325L;
+        int length = chunk.getChar(offset);
+        for (int i = 0; i < length; i++) {
+            h = (h ^ (chunk.get(offset + HEADER + i) & 0xFF)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private int find(byte[] isbn) {
+        return find(isbn, hash(isbn));
+    }
+
+    private int find(byte[] isbn, long hash) {
+        var fragment = fragment(hash);
+        var slot = (int) hash & mask;
+        long entry;
+        while ((entry = table.getLong(slot * 8)) != EMPTY) {
+            if ((entry >>> 40) == fragment && isbnEquals((entry & ADDRESS_MASK) - 1, isbn)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void place(long hash, long address) {
+        var slot = (int) hash & mask;
+        while (table.getLong(slot * 8) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table.putLong(slot * 8, (fragment(hash) << 40) | (address + 1));
+    }
+
+    private long address(int slot) {
+        return (table.getLong(slot * 8) & ADDRESS_MASK) - 1;
+    }
+
+    // Borrado con desplazamiento hacia atras, igual que en CompactBookRepository
+    private void deleteSlot(int slot) {
+        var hole = slot;
+        var next = (hole + 1) & mask;
+        long entry;
+        while ((entry = table.getLong(next * 8)) != EMPTY) {
+            var ideal = (int) storedHash((entry & ADDRESS_MASK) - 1) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                table.putLong(hole * 8, entry);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table.putLong(hole * 8, EMPTY);
+    }
+
+    // La tabla se mantiene a lo sumo a la mitad de su capacidad
+    private void ensureCapacity(int needed) {
+        if ((long) needed * 2 <= mask + 1) {
+            return;
+        }
+        var old = table;
+        var oldSlots = mask + 1;
+        allocateTable(needed);
+        for (int slot = 0; slot < oldSlots; slot++) {
+            var entry = old.getLong(slot * 8);
+            if (entry != EMPTY) {
+                var address = (entry & ADDRESS_MASK) - 1;
+                place(storedHash(address), address);
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        if (capacity > MAX_SLOTS / 2) {
+            throw new IllegalStateException("El catalogo fuera del heap admite hasta " + MAX_SLOTS / 2 + " libros");
+        }
+        var slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        table = ByteBuffer.allocateDirect(slots * 8);
+        mask = slots - 1;
+    }
+
+    // Reescribe los registros vivos en bloques nuevos y libera los anteriores
+    private void compact() {
+        var old = chunks;
+        chunks = new ArrayList<>();
+        used = 0;
+        garbage = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            var entry = table.getLong(slot * 8);
+            if (entry == EMPTY) {
+                continue;
+            }
+            var address = (entry & ADDRESS_MASK) - 1;
+            var chunk = old.get((int) (address >>> CHUNK_BITS));
+            var offset = (int) (address & (CHUNK_SIZE - 1));
+            var isbn = new byte[chunk.getChar(offset)];
+            var title = new byte[chunk.getChar(offset + 2)];
+            var author = new byte[chunk.getChar(offset + 4)];
+            chunk.get(offset + HEADER, isbn);
+            chunk.get(offset + HEADER + isbn.length, title);
+            chunk.get(offset + HEADER + isbn.length + title.length, author);
+            var moved = write(isbn, title, author);
+            table.putLong(slot * 8, (entry & ~ADDRESS_MASK) | (moved + 1));
+        }
+    }
+
+    private static byte[] encode(String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD) {
+            throw new IllegalArgumentException("Campo demasiado largo para el catalogo: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    // FNV-1a sobre los bytes del isbn, para poder recalcularlo desde el registro
+    private static long hash(byte[] isbn) {
+        var h = 0xcbf29ce484222325L;
+        for (var b : isbn) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private static long fragment(long hash) {
+        return (hash >>> 40) & 0xFFFFFF;
+    }
+}
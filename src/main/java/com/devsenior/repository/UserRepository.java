@@ -0,0 +1,31 @@
+package com.devsenior.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.devsenior.model.User;
+
+// Almacenamiento de usuarios detras de UserService
+public interface UserRepository {
+
+    // Devuelve el usuario guardado, o null si ya existe uno con el mismo id
+    User add(User user);
+
+    // Agrega un lote en un solo paso y devuelve los usuarios guardados (los repetidos se omiten)
+    List<User> addAll(Collection<User> users);
+
+    // Devuelve null si no existe
+    User get(String id);
+
+    boolean contains(String id);
+
+    // Guarda los cambios de nombre o email de un usuario existente
+    void update(User user);
+
+    // Devuelve el usuario borrado o null si no existe
+    User remove(String id);
+
+    int size();
+
+    List<User> findAll();
+}
@@ -0,0 +1,208 @@
+package com.devsenior.reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import com.devsenior.model.Hold;
+import com.devsenior.model.HoldState;
+
+/*
+ * Colas de reservas por isbn. Cada cola es un LinkedHashMap usuario -> reserva: el orden
+ * de insercion da el FIFO, y cancelar es quitar por clave, O(1). Toda operacion sobre una
+ * cola se hace dentro del compute de su isbn, asi que isbn distintos no se bloquean y
+ * ninguna operacion recorre reservas de otros libros.
+ *
+ * Las reservas vencidas se descartan al llegar al frente de la cola (poll) o con
+ * expire, que trabaja sobre la cola de un isbn como place y cancel. expiredIsbns dice
+ * que colas revisar sin recorrerlas: solo mira los dias ya vencidos del indice por fecha
+ * de vencimiento. Cada reserva sale de ese indice una a una, y un dia se borra cuando
+ * queda vacio, en el mismo compute en que se le agregan reservas.
+ * Un indice por usuario permite cancelar las reservas de un usuario sin recorrer colas.
+ */
+public class HoldQueues {
+
+    private Map<String, LinkedHashMap<String, Hold>> queues = new ConcurrentHashMap<>();
+    private NavigableMap<Long, Set<Hold>> byExpiry = new ConcurrentSkipListMap<>();
+    private Map<String, Set<Hold>> byUser = new ConcurrentHashMap<>();
+
+    // Si el usuario ya esperaba el libro devuelve su reserva, sin perder el lugar
+    public Hold place(String userId, String isbn, LocalDate placedDate, LocalDate expiryDate) {
+        var placed = new Hold[1];
+        queues.compute(isbn, (key, queue) -> {
+            if (queue == null) {
+                queue = new LinkedHashMap<>();
+            }
+            placed[0] = queue.get(userId);
+            if (placed[0] == null) {
+                placed[0] = new Hold(userId, isbn, placedDate, expiryDate);
+                queue.put(userId, placed[0]);
+                byExpiry.compute(expiryDate.toEpochDay(), (day, holds) -> {
+                    var due = holds != null ? holds : ConcurrentHashMap.<Hold>newKeySet();
+                    due.add(placed[0]);
+                    return due;
+                });
+                byUser.compute(userId, (id, waiting) -> {
+                    var holds = waiting != null ? waiting : ConcurrentHashMap.<Hold>newKeySet();
+                    holds.add(placed[0]);
+                    return holds;
+                });
+            }
+            return queue;
+        });
+        return placed[0];
+    }
+
+    // Reserva en espera del usuario sobre el libro, o null si no la tiene
+    public Hold get(String userId, String isbn) {
+        var queue = queues.get(isbn);
+        if (queue == null) {
+            return null;
+        }
+        var found = new Hold[1];
+        queues.computeIfPresent(isbn, (key, current) -> {
+            found[0] = current.get(userId);
+            return current;
+        });
+        return found[0];
+    }
+
+    // Devuelve null si el usuario no tenia reserva sobre el libro
+    public Hold cancel(String userId, String isbn) {
+        var cancelled = new Hold[1];
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            cancelled[0] = queue.remove(userId);
+            if (cancelled[0] != null) {
+                finish(cancelled[0], HoldState.CANCELLED);
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return cancelled[0];
+    }
+
+    // Cancela todas las reservas en espera del usuario (por ejemplo al borrarlo)
+    public List<Hold> cancelAll(String userId) {
+        var cancelled = new ArrayList<Hold>();
+        var waiting = byUser.get(userId);
+        if (waiting == null) {
+            return cancelled;
+        }
+        for (var hold : List.copyOf(waiting)) {
+            var removed = cancel(userId, hold.getIsbn());
+            if (removed != null) {
+                cancelled.add(removed);
+            }
+        }
+        return cancelled;
+    }
+
+    // Saca la primera reserva vigente que acepte eligible y la marca FULFILLED. Las
+    // vencidas del frente se descartan y las que eligible rechaza se cancelan
+    public Hold poll(String isbn, LocalDate today, Predicate<Hold> eligible) {
+        var next = new Hold[1];
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            var iterator = queue.values().iterator();
+            while (next[0] == null && iterator.hasNext()) {
+                var hold = iterator.next();
+                iterator.remove();
+                if (hold.isExpired(today)) {
+                    finish(hold, HoldState.EXPIRED);
+                } else if (!eligible.test(hold)) {
+                    finish(hold, HoldState.CANCELLED);
+                } else {
+                    finish(hold, HoldState.FULFILLED);
+                    next[0] = hold;
+                }
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return next[0];
+    }
+
+    // Reservas en espera del libro, en orden de llegada
+    public List<Hold> getHolds(String isbn) {
+        var holds = new ArrayList<Hold>();
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            holds.addAll(queue.values());
+            return queue;
+        });
+        return holds;
+    }
+
+    // Todas las reservas en espera; las de un mismo isbn en orden de llegada
+    public List<Hold> findAll() {
+        var holds = new ArrayList<Hold>();
+        for (var isbn : queues.keySet()) {
+            holds.addAll(getHolds(isbn));
+        }
+        return holds;
+    }
+
+    public boolean hasHolds(String isbn) {
+        return queues.containsKey(isbn);
+    }
+
+    // Isbn con alguna reserva que vencio antes del dia indicado
+    public Set<String> expiredIsbns(LocalDate today) {
+        var isbns = new LinkedHashSet<String>();
+        for (var day : byExpiry.headMap(today.toEpochDay(), false).values()) {
+            for (var hold : day) {
+                isbns.add(hold.getIsbn());
+            }
+        }
+        return isbns;
+    }
+
+    public boolean hasExpired(String isbn, LocalDate today) {
+        var found = new boolean[1];
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            for (var hold : queue.values()) {
+                found[0] |= hold.isExpired(today);
+            }
+            return queue;
+        });
+        return found[0];
+    }
+
+    // Quita de la cola del isbn las reservas que vencieron antes del dia indicado
+    public List<Hold> expire(String isbn, LocalDate today) {
+        var expired = new ArrayList<Hold>();
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            var iterator = queue.values().iterator();
+            while (iterator.hasNext()) {
+                var hold = iterator.next();
+                if (hold.isExpired(today)) {
+                    iterator.remove();
+                    finish(hold, HoldState.EXPIRED);
+                    expired.add(hold);
+                }
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return expired;
+    }
+
+    private void finish(Hold hold, HoldState state) {
+        hold.setState(state);
+        byExpiry.computeIfPresent(hold.getExpiryDate().toEpochDay(), (day, holds) -> {
+            holds.remove(hold);
+            return holds.isEmpty() ? null : holds;
+        });
+        forget(hold);
+    }
+
+    private void forget(Hold hold) {
+        byUser.computeIfPresent(hold.getUserId(), (id, waiting) -> {
+            waiting.remove(hold);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+}
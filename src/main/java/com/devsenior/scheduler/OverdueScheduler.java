@@ -0,0 +1,84 @@
+package com.devsenior.scheduler;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.devsenior.model.Loan;
+
+/*
+ * Prestamos activos agrupados por dia de vencimiento (dias desde la epoca). Consultar
+ * los vencidos solo recorre los dias anteriores a hoy, asi que el costo depende de
+ * cuantos prestamos estan vencidos y no del total. Cancelar es quitar de un conjunto.
+ *
+ * Los conjuntos se modifican dentro del compute de su dia, y en el mismo paso se agrega
+ * o se quita el dia del indice ordenado: un dia que queda vacio se borra sin que se
+ * pierda un prestamo agendado al mismo tiempo, y las consultas no recorren dias vacios.
+ */
+public class OverdueScheduler {
+
+    private Map<Long, Set<Loan>> buckets = new ConcurrentHashMap<>();
+    private NavigableSet<Long> days = new ConcurrentSkipListSet<>();
+
+    public void schedule(Loan loan) {
+        if (loan.getDueDate() == null) {
+            return;
+        }
+        buckets.compute(loan.getDueDate().toEpochDay(), (day, bucket) -> {
+            if (bucket == null) {
+                bucket = new HashSet<>();
+                days.add(day);
+            }
+            bucket.add(loan);
+            return bucket;
+        });
+    }
+
+    public void cancel(Loan loan) {
+        if (loan.getDueDate() == null) {
+            return;
+        }
+        buckets.computeIfPresent(loan.getDueDate().toEpochDay(), (day, bucket) -> {
+            bucket.remove(loan);
+            if (!bucket.isEmpty()) {
+                return bucket;
+            }
+            days.remove(day);
+            return null;
+        });
+    }
+
+    // Prestamos cuya fecha de vencimiento es anterior al dia indicado
+    public List<Loan> getOverdueLoans(LocalDate today) {
+        var overdue = new ArrayList<Loan>();
+        for (var day : days.headSet(today.toEpochDay(), false)) {
+            buckets.computeIfPresent(day, (key, bucket) -> {
+                overdue.addAll(bucket);
+                return bucket;
+            });
+        }
+        return overdue;
+    }
+
+    public int countOverdueLoans(LocalDate today) {
+        var count = new int[1];
+        for (var day : days.headSet(today.toEpochDay(), false)) {
+            buckets.computeIfPresent(day, (key, bucket) -> {
+                count[0] += bucket.size();
+                return bucket;
+            });
+        }
+        return count[0];
+    }
+
+    // Dias con al menos un prestamo agendado
+    public int getScheduledDays() {
+        return days.size();
+    }
+}
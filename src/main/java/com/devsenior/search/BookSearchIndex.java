@@ -0,0 +1,439 @@
+package com.devsenior.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import com.devsenior.model.Book;
+
+/*
+ * Indice invertido sobre el titulo y el autor de los libros. Los textos se normalizan
+ * (minusculas y sin tildes) y cada palabra apunta a los libros que la contienen. Las
+ * palabras estan ordenadas para poder resolver busquedas por prefijo.
+ *
+ * Cada libro recibe un ordinal al indexarse y cada palabra guarda un int[] ordenado con
+ * ordinal << 2 | campos, en vez de un mapa por palabra. Los ordinales solo crecen, asi
+ * que agregar es añadir al final. Quitar un libro deja su ordinal sin isbn y la lista se
+ * compacta cuando la mitad son ordinales quitados.
+ *
+ * Las busquedas no bloquean; add y remove se llaman desde un solo escritor a la vez.
+ */
+public class BookSearchIndex {
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int FIELD_BITS = 2;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final int EXACT_TITLE_SCORE = 4;
+    private static final int EXACT_AUTHOR_SCORE = 3;
+    private static final int PREFIX_TITLE_SCORE = 2;
+    private static final int PREFIX_AUTHOR_SCORE = 1;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final NavigableMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+    // isbn -> ordinal; solo lo usa el escritor
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    // ordinal -> isbn, null si el libro se quito
+    private final IsbnTable isbns = new IsbnTable();
+    private int nextOrdinal;
+
+    // Un isbn que ya esta indexado se ignora: BookService solo indexa libros nuevos
+    public void add(Book book) {
+        var ordinal = assign(book.getIsbn());
+        if (ordinal < 0) {
+            return;
+        }
+        fields(book).forEach((word, fields) -> {
+            var current = postings.get(word);
+            if (current == null) {
+                current = new Postings();
+                current.append(ordinal << FIELD_BITS | fields);
+                postings.put(word, current);
+            } else {
+                current.append(ordinal << FIELD_BITS | fields);
+            }
+        });
+    }
+
+    // Carga masiva: los textos se tokenizan en paralelo y cada palabra entra una sola vez
+    // a la skip list, en orden
+    public void addAll(Collection<Book> books) {
+        var list = List.copyOf(books);
+        var tokens = new ArrayList<Map<String, Integer>>(Collections.nCopies(list.size(), null));
+        IntStream.range(0, list.size()).parallel().forEach(i -> tokens.set(i, fields(list.get(i))));
+
+        var grouped = new HashMap<String, Postings>();
+        for (int i = 0; i < list.size(); i++) {
+            var ordinal = assign(list.get(i).getIsbn());
+            if (ordinal >= 0) {
+                tokens.get(i).forEach((word, field) ->
+                        grouped.computeIfAbsent(word, key -> new Postings()).append(ordinal << FIELD_BITS | field));
+            }
+        }
+        var words = grouped.keySet().toArray(String[]::new);
+        Arrays.parallelSort(words);
+        for (var word : words) {
+            var added = grouped.get(word);
+            var current = postings.putIfAbsent(word, added);
+            if (current != null) {
+                // Los ordinales nuevos son mayores que los que ya estaban
+                current.appendAll(added);
+            }
+        }
+    }
+
+    public void remove(Book book) {
+        var ordinal = ordinals.remove(book.getIsbn());
+        if (ordinal == null) {
+            return;
+        }
+        isbns.set(ordinal, null);
+        for (var word : fields(book).keySet()) {
+            var current = postings.get(word);
+            if (current != null && ++current.removed * 2 >= current.size) {
+                // Las busquedas en curso siguen con la lista vieja
+                var compacted = current.compact(isbns);
+                if (compacted.size == 0) {
+                    postings.remove(word);
+                } else {
+                    postings.put(word, compacted);
+                }
+            }
+        }
+    }
+
+    // Devuelve los isbn que contienen todas las palabras de la consulta (completas o como
+    // prefijo), del mas relevante al menos relevante; a igual puntaje, primero el que se
+    // indexo antes.
+    // Las listas de cada palabra se cruzan por ordinal saltando con busqueda binaria, sin
+    // juntar antes todos los libros del prefijo. Se guardan solo los limit mejores y se
+    // corta en cuanto estan llenos con el puntaje maximo posible, porque los que siguen
+    // tienen un ordinal mayor y no pueden desplazarlos
+    public List<String> search(String query, int limit) {
+        var tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        var cursors = new ArrayList<Cursor>(tokens.size());
+        var best = 0;
+        for (var token : tokens) {
+            var cursor = cursor(token);
+            if (cursor == null) {
+                return List.of();
+            }
+            cursors.add(cursor);
+            best += cursor.bestScore;
+        }
+        // La palabra menos frecuente marca el paso del cruce
+        cursors.sort(Comparator.comparingLong(cursor -> cursor.total));
+
+        // Puntaje << 32 | ordinal invertido: en la cabeza queda el peor de los guardados
+        var ranking = new PriorityQueue<Long>(Math.min(limit, 1024) + 1);
+        var target = 0;
+        while (true) {
+            var candidate = intersect(cursors, target);
+            if (candidate < 0) {
+                break;
+            }
+            if (isbns.get(candidate) != null) {
+                var score = 0;
+                for (var cursor : cursors) {
+                    score += cursor.score(candidate);
+                }
+                ranking.add((long) score << 32 | (Integer.MAX_VALUE - candidate));
+                if (ranking.size() > limit) {
+                    ranking.poll();
+                }
+                if (ranking.size() == limit && ranking.peek() >>> 32 == best) {
+                    break;
+                }
+            }
+            target = candidate + 1;
+        }
+
+        var result = new ArrayList<String>(ranking.size());
+        while (!ranking.isEmpty()) {
+            var isbn = isbns.get(Integer.MAX_VALUE - (int) (ranking.poll() & 0xFFFFFFFFL));
+            if (isbn != null) {
+                result.add(isbn);
+            }
+        }
+        return result.reversed();
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        var decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // Primer ordinal que esta en todas las listas a partir de target, o -1
+    private static int intersect(List<Cursor> cursors, int target) {
+        var candidate = target;
+        var agreed = 0;
+        for (int i = 0; agreed < cursors.size(); i = (i + 1) % cursors.size()) {
+            var ordinal = cursors.get(i).seek(candidate);
+            if (ordinal < 0) {
+                return -1;
+            }
+            if (ordinal == candidate) {
+                agreed++;
+            } else {
+                candidate = ordinal;
+                agreed = 1;
+            }
+        }
+        return candidate;
+    }
+
+    private Cursor cursor(String token) {
+        var range = new ArrayList<>(postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet());
+        if (range.isEmpty()) {
+            return null;
+        }
+        var cursor = new Cursor(range.size());
+        for (var entry : range) {
+            cursor.add(entry.getValue(), entry.getKey().equals(token));
+        }
+        return cursor.size == 0 ? null : cursor;
+    }
+
+    private int assign(String isbn) {
+        if (ordinals.containsKey(isbn)) {
+            return -1;
+        }
+        if (nextOrdinal > Integer.MAX_VALUE >>> FIELD_BITS) {
+            throw new IllegalStateException("El indice de busqueda no admite mas libros");
+        }
+        var ordinal = nextOrdinal++;
+        ordinals.put(isbn, ordinal);
+        isbns.set(ordinal, isbn);
+        return ordinal;
+    }
+
+    // palabra -> campos donde aparece, para un libro
+    private static Map<String, Integer> fields(Book book) {
+        var fields = new LinkedHashMap<String, Integer>();
+        for (var token : tokenize(book.getTitle())) {
+            fields.put(token, TITLE);
+        }
+        for (var token : tokenize(book.getAuthor())) {
+            fields.merge(token, AUTHOR, (current, added) -> current | added);
+        }
+        return fields;
+    }
+
+    private static int score(int fields, boolean exact) {
+        var score = 0;
+        if ((fields & TITLE) != 0) {
+            score = exact ? EXACT_TITLE_SCORE : PREFIX_TITLE_SCORE;
+        }
+        if ((fields & AUTHOR) != 0) {
+            score = Math.max(score, exact ? EXACT_AUTHOR_SCORE : PREFIX_AUTHOR_SCORE);
+        }
+        return score;
+    }
+
+    // Libros de una palabra, ordenados por ordinal. Solo el escritor agrega, y publica el
+    // tamaño despues del arreglo: quien lee size primero encuentra esas entradas en entries
+    private static final class Postings {
+
+        private volatile int[] entries = new int[1];
+        private volatile int size;
+        // Union de los campos de todas las entradas
+        private volatile int fields;
+        // Entradas cuyo libro se quito; solo lo usa el escritor
+        private int removed;
+
+        void append(int entry) {
+            var current = entries;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size + (size >> 1) + 1);
+                entries = current;
+            }
+            current[size] = entry;
+            fields = fields | (entry & FIELD_MASK);
+            size = size + 1;
+        }
+
+        void appendAll(Postings other) {
+            for (int i = 0; i < other.size; i++) {
+                append(other.entries[i]);
+            }
+        }
+
+        Postings compact(IsbnTable isbns) {
+            var compacted = new Postings();
+            for (int i = 0; i < size; i++) {
+                if (isbns.get(entries[i] >>> FIELD_BITS) != null) {
+                    compacted.append(entries[i]);
+                }
+            }
+            return compacted;
+        }
+    }
+
+    // Recorre a la vez las listas de todas las palabras que empiezan con un token. Un
+    // monticulo ordena las listas por su ordinal actual; avanzar hasta un ordinal es una
+    // busqueda binaria en cada lista que esta detras
+    private static final class Cursor {
+
+        private final int[][] entries;
+        private final int[] sizes;
+        private final int[] positions;
+        private final boolean[] exact;
+        private final int[] scratch;
+        private final PriorityQueue<Integer> heap;
+        private int size;
+        private long total;
+        private int bestScore;
+
+        Cursor(int words) {
+            entries = new int[words][];
+            sizes = new int[words];
+            positions = new int[words];
+            exact = new boolean[words];
+            scratch = new int[words];
+            heap = new PriorityQueue<>(words, Comparator.comparingInt(this::current));
+        }
+
+        void add(Postings postings, boolean exactWord) {
+            var count = postings.size;
+            if (count == 0) {
+                return;
+            }
+            entries[size] = postings.entries;
+            sizes[size] = count;
+            exact[size] = exactWord;
+            bestScore = Math.max(bestScore, BookSearchIndex.score(postings.fields, exactWord));
+            total += count;
+            heap.add(size++);
+        }
+
+        // Primer ordinal >= target, o -1 si no quedan
+        int seek(int target) {
+            var key = target << FIELD_BITS;
+            while (!heap.isEmpty() && current(heap.peek()) < key) {
+                var word = heap.poll();
+                positions[word] = lowerBound(entries[word], positions[word] + 1, sizes[word], key);
+                if (positions[word] < sizes[word]) {
+                    heap.add(word);
+                }
+            }
+            return heap.isEmpty() ? -1 : current(heap.peek()) >>> FIELD_BITS;
+        }
+
+        // Puntaje del ordinal en el que quedo seek: el mejor entre sus palabras. Solo se
+        // sacan del monticulo las listas que estan en ese ordinal
+        int score(int ordinal) {
+            var score = 0;
+            var count = 0;
+            while (!heap.isEmpty() && current(heap.peek()) >>> FIELD_BITS == ordinal) {
+                var word = heap.poll();
+                score = Math.max(score, BookSearchIndex.score(current(word) & FIELD_MASK, exact[word]));
+                scratch[count++] = word;
+            }
+            for (int i = 0; i < count; i++) {
+                heap.add(scratch[i]);
+            }
+            return score;
+        }
+
+        private int current(int word) {
+            return entries[word][positions[word]];
+        }
+
+        private static int lowerBound(int[] entries, int from, int to, int key) {
+            var low = from;
+            var high = to;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (entries[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Arreglo por bloques que solo crece; un ordinal se lee despues de verlo publicado en
+    // alguna lista de palabras
+    private static final class IsbnTable {
+
+        private static final int BITS = 10;
+        private static final int SIZE = 1 << BITS;
+
+        private volatile String[][] chunks = new String[0][];
+
+        void set(int ordinal, String isbn) {
+            var current = chunks;
+            var chunk = ordinal >>> BITS;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, chunk + 1);
+                current[chunk] = new String[SIZE];
+                chunks = current;
+            }
+            current[chunk][ordinal & (SIZE - 1)] = isbn;
+        }
+
+        String get(int ordinal) {
+            return chunks[ordinal >>> BITS][ordinal & (SIZE - 1)];
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        var tokens = new LinkedHashSet<String>();
+        if (text != null && isAscii(text)) {
+            // Sin tildes que quitar: se separa a mano y se evitan Normalizer y las expresiones regulares
+            var start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                var letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (letter && start < 0) {
+                    start = i;
+                } else if (!letter && start >= 0) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = -1;
+                }
+            }
+            return tokens;
+        }
+        for (var token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,44 +1,298 @@
 package com.devsenior.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.devsenior.exception.DuplicateException;
+import com.devsenior.events.ChangeStream;
+import com.devsenior.events.EntityType;
 import com.devsenior.exception.NotFoundException;
+import com.devsenior.metrics.LibraryMetrics;
+import com.devsenior.metrics.Operation;
+import com.devsenior.metrics.OperationStats.Outcome;
+import com.devsenior.importer.DelimitedReader;
+import com.devsenior.importer.ImportResult;
+import com.devsenior.importer.RowError;
+import com.devsenior.importer.RowErrorType;
 import com.devsenior.model.Book;
+import com.devsenior.pagination.BookSort;
+import com.devsenior.pagination.Page;
+import com.devsenior.pagination.SortedIndex;
+import com.devsenior.persistence.Journal;
+import com.devsenior.persistence.JournalRecordType;
+import com.devsenior.repository.BookRepository;
+import com.devsenior.repository.InMemoryBookRepository;
+import com.devsenior.search.BookSearchIndex;
+import com.devsenior.snapshot.Change;
+import com.devsenior.snapshot.ChangeLog;
+import com.devsenior.snapshot.ChangeType;
+import com.devsenior.snapshot.VersionedList;
 
 public class BookService {
 
-    private List<Book> books;
+    private static final String[] IMPORT_HEADER = {"isbn", "title", "author"};
+
+    // Indice por isbn: busqueda y borrado en O(1) sin importar el tamaño del catalogo
+    private BookRepository books;
+    private BookSearchIndex searchIndex;
+    // Orden por titulo y por isbn para paginar sin copiar el catalogo. Guardan solo el isbn
+    // y cada pagina se resuelve en el repositorio, asi un catalogo compacto no vuelve a
+    // tener un Book por libro en el heap
+    private SortedIndex<String> byTitle;
+    private SortedIndex<String> byIsbn;
+    private ChangeLog<Book> changes;
+    // Serializa las escrituras. Es un ReentrantLock para que un hilo virtual que espera
+    // su turno (o la bitacora) no deje fijo su hilo portador
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Journal journal;
+    private LibraryMetrics metrics = LibraryMetrics.getInstance();
+    private ChangeStream stream;
 
     public BookService(){
-        books = new ArrayList<>();
+        this(new InMemoryBookRepository());
+    }
+
+    public BookService(BookRepository books){
+        this(books, true);
+    }
+
+    // Sin indices secundarios no hay busqueda ni paginas ordenadas, pero el servicio no
+    // guarda ninguna referencia a los libros (necesario con OffHeapBookRepository)
+    public BookService(BookRepository books, boolean secondaryIndexes){
+        this.books = books;
+        if (secondaryIndexes) {
+            this.searchIndex = new BookSearchIndex();
+            this.byTitle = new SortedIndex<>();
+            this.byIsbn = new SortedIndex<>();
+        }
+        this.changes = new ChangeLog<>();
     }
 
+    // Las escrituras se serializan en el servicio; las lecturas no bloquean
     public void addBook(String isbn, String title, String author){
-        books.add(new Book(isbn, title, author));
+        writeLock.lock();
+        try {
+            var book = books.add(new Book(isbn, title, author));
+            if (book == null) {
+                throw new DuplicateException("Ya existe un libro con isbn: " + isbn);
+            }
+            index(book);
+            changes.record(ChangeType.ADDED, book.getIsbn(), book);
+            publish(ChangeType.ADDED, book.getIsbn());
+            log(JournalRecordType.ADD_BOOK, isbn, title, author);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Publica cada cambio en el flujo. Con BLOCK, un suscriptor detenido frena las escrituras
+    public void setChangeStream(ChangeStream stream) {
+        this.stream = stream;
+    }
+
+    public ImportResult importBooks(Path file) throws IOException {
+        try (var input = Files.newInputStream(file)) {
+            return importBooks(input, DelimitedReader.delimiterFor(file));
+        }
+    }
+
+    // Carga masiva con columnas isbn, title, author. Las filas repetidas o invalidas
+    // se reportan y el lote completo se publica al final en un solo paso
+    public ImportResult importBooks(InputStream input, char delimiter) throws IOException {
+        writeLock.lock();
+        try {
+            var staged = new LinkedHashMap<String, Book>();
+            var errors = new ArrayList<RowError>();
+
+            var reader = new DelimitedReader<Book>(delimiter, IMPORT_HEADER, BookService::parseBook);
+            reader.read(input, row -> {
+                if (!row.isValid()) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.INVALID, row.getError()));
+                    return;
+                }
+                var book = row.getValue();
+                if (!books.accepts(book.getIsbn())) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.INVALID, "ISBN invalido: " + book.getIsbn()));
+                } else if (books.contains(book.getIsbn())
+                        || staged.putIfAbsent(books.canonicalIsbn(book.getIsbn()), book) != null) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.DUPLICATE, "Ya existe un libro con isbn: " + book.getIsbn()));
+                }
+            });
+
+            var added = books.addAll(staged.values());
+            for (var book : added) {
+                index(book);
+                changes.record(ChangeType.ADDED, book.getIsbn(), book);
+                publish(ChangeType.ADDED, book.getIsbn());
+                log(JournalRecordType.ADD_BOOK, book.getIsbn(), book.getTitle(), book.getAuthor());
+            }
+            return new ImportResult(added.size(), errors);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Carga en un solo paso libros que ya son durables (snapshot), sin pasar por la bitacora
+    public void restoreBooks(Collection<Book> restored) {
+        writeLock.lock();
+        try {
+            var added = books.addAll(restored);
+            if (searchIndex != null) {
+                searchIndex.addAll(added);
+                byTitle.addAll(added, BookService::titleKey, Book::getIsbn, Book::getIsbn);
+                byIsbn.addAll(added, Book::getIsbn, book -> "", Book::getIsbn);
+            }
+            for (var book : added) {
+                changes.record(ChangeType.ADDED, book.getIsbn(), book);
+                publish(ChangeType.ADDED, book.getIsbn());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Isbn con el que el catalogo guarda el libro; quien indexe por isbn debe usar este
+    public String canonicalIsbn(String isbn) {
+        return books.canonicalIsbn(isbn);
     }
 
     public List<Book> getAllBooks(){
-        return books;
+        return books.findAll();
+    }
+
+    // Lista fija del catalogo que se puede recorrer sin bloquear a los escritores; los
+    // Book no cambian, asi que tampoco sus elementos
+    public VersionedList<Book> getBooksSnapshot() {
+        return changes.snapshot(books::findAll);
+    }
+
+    public List<Change<Book>> getBookChangesSince(long version) {
+        return changes.changesSince(version);
+    }
+
+    // Consulta sin excepcion para los caminos donde no encontrar el libro es lo normal
+    public Optional<Book> findBookByIsbn(String isbn) {
+        return Optional.ofNullable(books.get(isbn));
     }
 
     public Book getBookByIsbn(String isbn) throws NotFoundException{
-        for (Book book : books) {
-            if(book.getIsbn().equals(isbn)){
-                return book;
+        var start = metrics.start();
+        var book = books.get(isbn);
+        if (book == null) {
+            metrics.stop(Operation.GET_BOOK_BY_ISBN, start, Outcome.MISS);
+            throw new NotFoundException("No fue encontrado el libro con isbn: ", isbn);
+        }
+        metrics.stop(Operation.GET_BOOK_BY_ISBN, start, Outcome.SUCCESS);
+        return book;
+    }
+
+    // Busqueda por palabras o prefijos del titulo y el autor, sin distinguir mayusculas ni tildes
+    public List<Book> searchBooks(String query, int limit) {
+        requireSecondaryIndexes();
+        var result = new ArrayList<Book>();
+        for (var isbn : searchIndex.search(query, limit)) {
+            var book = books.get(isbn);
+            if (book != null) {
+                result.add(book);
             }
         }
-        throw new NotFoundException("No fue encontrado el libro con isbn: " + isbn);
+        return result;
+    }
+
+    // Pagina ordenada por titulo (sin distinguir mayusculas) o por isbn. Se pasa el
+    // nextCursor de la pagina anterior, o null para la primera
+    public Page<Book> getBooksPage(BookSort sort, String cursor, int limit) {
+        requireSecondaryIndexes();
+        var page = (sort == BookSort.TITLE ? byTitle : byIsbn).page(cursor, limit);
+        var items = new ArrayList<Book>(page.getItems().size());
+        for (var isbn : page.getItems()) {
+            // Un libro borrado despues de leer el indice no aparece en la pagina
+            var book = books.get(isbn);
+            if (book != null) {
+                items.add(book);
+            }
+        }
+        return new Page<>(items, page.getNextCursor());
     }
 
     public void deleteBook(String isbn) throws NotFoundException{
-        for (Book book : books) {
-            if(book.getIsbn().equals(isbn)){
-                books.remove(book);
-                return;
+        writeLock.lock();
+        try {
+            var book = books.remove(isbn);
+            if (book == null) {
+                throw new NotFoundException("No se puede borrar el libro con isbn: ", isbn);
             }
+            if (searchIndex != null) {
+                searchIndex.remove(book);
+                byTitle.remove(titleKey(book), book.getIsbn());
+                byIsbn.remove(book.getIsbn(), "");
+            }
+            changes.record(ChangeType.REMOVED, book.getIsbn(), book);
+            publish(ChangeType.REMOVED, book.getIsbn());
+            log(JournalRecordType.DELETE_BOOK, isbn);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void publish(ChangeType type, String isbn) {
+        if (stream != null) {
+            stream.publish(EntityType.BOOK, type, isbn, null, Long.MIN_VALUE);
+        }
+    }
+
+    private void index(Book book) {
+        if (searchIndex == null) {
+            return;
         }
+        searchIndex.add(book);
+        byTitle.add(titleKey(book), book.getIsbn(), book.getIsbn());
+        byIsbn.add(book.getIsbn(), "", book.getIsbn());
+    }
+
+    private void requireSecondaryIndexes() {
+        if (searchIndex == null) {
+            throw new IllegalStateException("El servicio se creo sin indices secundarios");
+        }
+    }
 
-        throw new NotFoundException("No se puede borrar el libro con isbn: " + isbn);
+    private static String titleKey(Book book) {
+        return book.getTitle().toLowerCase(Locale.ROOT);
+    }
+
+    private void log(JournalRecordType type, String... fields) {
+        if (journal != null) {
+            journal.append(type, null, fields);
+        }
+    }
+
+    private static Book parseBook(String[] fields) {
+        if (fields.length < IMPORT_HEADER.length) {
+            throw new IllegalArgumentException("Se esperaban " + IMPORT_HEADER.length + " columnas y llegaron " + fields.length);
+        }
+        var isbn = fields[0].trim();
+        var title = fields[1].trim();
+        var author = fields[2].trim();
+        if (isbn.isEmpty() || title.isEmpty() || author.isEmpty()) {
+            throw new IllegalArgumentException("El isbn, el titulo y el autor son obligatorios");
+        }
+        return new Book(isbn, title, author);
     }
 }
@@ -0,0 +1,11 @@
+package com.devsenior.service;
+
+// Que hacer con los prestamos activos de un usuario que se borra
+public enum IntegrityMode {
+    // No se revisan los prestamos (comportamiento anterior)
+    NONE,
+    // El borrado falla si el usuario tiene prestamos activos
+    BLOCK,
+    // Los prestamos activos se devuelven antes de borrar al usuario
+    CASCADE
+}
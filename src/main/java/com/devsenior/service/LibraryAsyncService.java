@@ -0,0 +1,161 @@
+package com.devsenior.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import com.devsenior.model.Book;
+import com.devsenior.model.Loan;
+import com.devsenior.model.User;
+
+/*
+ * Fachada asincrona sobre los servicios: cada llamada corre en un hilo virtual y
+ * devuelve un CompletableFuture, asi miles de peticiones concurrentes no ocupan hilos
+ * de plataforma mientras esperan.
+ *
+ * Dos limites:
+ * - maxConcurrent: cuantas llamadas ejecutan los servicios a la vez; el resto espera
+ *   en su hilo virtual sin consumir un hilo de plataforma.
+ * - maxPending: cuantas llamadas pueden estar admitidas (ejecutando o esperando). Al
+ *   llegar al limite el futuro falla de inmediato con RejectedExecutionException para
+ *   que quien llama aplique su propia contrapresion (p. ej. responder 503).
+ *
+ * Los errores de los servicios (NotFoundException, etc.) completan el futuro de forma
+ * excepcional con la misma excepcion.
+ *
+ * Los servicios y la bitacora se serializan con ReentrantLock, asi que esperar turno no
+ * fija el hilo portador. Lo que si lo fija es el compute por isbn de LoanService (usa un
+ * synchronized interno de ConcurrentHashMap) mientras dura, y dentro va la escritura en
+ * la bitacora y, cada syncEvery registros, su force. Con una bitacora lenta conviene que
+ * maxConcurrent no pase del numero de hilos portadores (los nucleos, por defecto).
+ */
+public class LibraryAsyncService implements AutoCloseable {
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService loanService;
+    private ExecutorService executor;
+    private Semaphore running;
+    private Semaphore admitted;
+    private int maxPending;
+
+    public LibraryAsyncService(BookService bookService, UserService userService, LoanService loanService,
+            int maxConcurrent, int maxPending) {
+        if (maxConcurrent <= 0 || maxPending < maxConcurrent) {
+            throw new IllegalArgumentException("Se requiere 0 < maxConcurrent <= maxPending");
+        }
+        this.bookService = bookService;
+        this.userService = userService;
+        this.loanService = loanService;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.running = new Semaphore(maxConcurrent);
+        this.admitted = new Semaphore(maxPending);
+        this.maxPending = maxPending;
+    }
+
+    public CompletableFuture<Void> addLoan(String id, String isbn) {
+        return submit(() -> {
+            loanService.addLoan(id, isbn);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> returnBook(String id, String isbn) {
+        return submit(() -> {
+            loanService.returnBook(id, isbn);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Book> getBookByIsbn(String isbn) {
+        return submit(() -> bookService.getBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<Optional<Book>> findBookByIsbn(String isbn) {
+        return submit(() -> bookService.findBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<List<Book>> searchBooks(String query, int limit) {
+        return submit(() -> bookService.searchBooks(query, limit));
+    }
+
+    public CompletableFuture<User> getUserById(String id) {
+        return submit(() -> userService.getUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserById(String id) {
+        return submit(() -> userService.findUserById(id));
+    }
+
+    public CompletableFuture<List<Loan>> getLoansByUserId(String id) {
+        return submit(() -> loanService.getLoansByUserId(id));
+    }
+
+    public CompletableFuture<List<Book>> getAllBooks() {
+        return submit(bookService::getAllBooks);
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return submit(userService::getAllUsers);
+    }
+
+    public CompletableFuture<List<Loan>> getLoans() {
+        return submit(loanService::getLoans);
+    }
+
+    // Llamadas admitidas que todavia no terminan
+    public int getPending() {
+        return maxPending - admitted.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        var future = new CompletableFuture<T>();
+        if (!admitted.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException("Hay demasiadas operaciones pendientes"));
+            return future;
+        }
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+        T result = null;
+        Throwable error = null;
+        try {
+            running.acquire();
+            try {
+                result = task.call();
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (Throwable e) {
+            error = e;
+        }
+        // Se libera el cupo antes de completar para que quien reaccione al resultado
+        // pueda volver a llamar sin ser rechazado
+        admitted.release();
+        if (error == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(error);
+        }
+    }
+}
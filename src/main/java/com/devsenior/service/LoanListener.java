@@ -0,0 +1,12 @@
+package com.devsenior.service;
+
+import com.devsenior.model.Loan;
+
+// Recibe cada prestamo que empieza o termina. Se llama dentro de la actualizacion del
+// isbn, asi que para un mismo libro los avisos llegan en orden; debe ser rapido
+public interface LoanListener {
+
+    void loanStarted(Loan loan);
+
+    void loanFinished(Loan loan);
+}
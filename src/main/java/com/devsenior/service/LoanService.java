@@ -1,61 +1,639 @@
 package com.devsenior.service;
 
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import com.devsenior.events.ChangeStream;
+import com.devsenior.events.EntityType;
+import com.devsenior.exception.DuplicateException;
 import com.devsenior.exception.NotFoundException;
+import com.devsenior.metrics.LibraryMetrics;
+import com.devsenior.metrics.Operation;
+import com.devsenior.metrics.OperationStats.Outcome;
+import com.devsenior.model.Book;
+import com.devsenior.model.Hold;
+import com.devsenior.model.HoldState;
 import com.devsenior.model.Loan;
+import com.devsenior.model.LoanRequest;
+import com.devsenior.model.LoanResult;
 import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+import com.devsenior.pagination.Page;
+import com.devsenior.pagination.SortedIndex;
+import com.devsenior.persistence.Journal;
+import com.devsenior.persistence.JournalRecordType;
+import com.devsenior.repository.LoanHistory;
+import com.devsenior.repository.LoanRepository;
+import com.devsenior.reservation.HoldQueues;
+import com.devsenior.scheduler.OverdueScheduler;
+import com.devsenior.snapshot.Change;
+import com.devsenior.snapshot.ChangeLog;
+import com.devsenior.snapshot.ChangeType;
+import com.devsenior.snapshot.VersionedList;
 
 public class LoanService {
 
-    private List<Loan> loans;
+    public static final Period DEFAULT_LOAN_PERIOD = Period.ofDays(14);
+    public static final Period DEFAULT_HOLD_PERIOD = Period.ofDays(30);
+    // Prestamo activo (STARTED) de cada isbn. Prestar un libro es reclamar su
+    // entrada de forma atomica, asi que libros distintos nunca compiten entre si
+    private Map<String, Loan> activeLoans;
+    // Prestamos activos de cada usuario. Registrar un prestamo y cerrar al usuario para
+    // borrarlo pasan por el compute de su entrada, asi que nunca se cruzan
+    private Map<String, Set<Loan>> activeLoansByUser;
+    // Entrada de un usuario que se esta borrando: no admite prestamos nuevos. Es propia
+    // de cada servicio, se compara por identidad y no se puede modificar
+    private final Set<Loan> closed = Collections.unmodifiableSet(new HashSet<>());
+    // Prestamos activos por fecha de prestamo (desempate por isbn) para paginar
+    private SortedIndex<Loan> activeByLoanDate;
+    // Los prestamos terminados salen de las estructuras activas y se archivan aqui
+    private LoanRepository history;
+    private ChangeLog<Loan> changes;
+    private OverdueScheduler overdue;
+    // Reservas de libros prestados; al devolver uno se presta al primero de su cola
+    private HoldQueues holds;
+    private volatile Period loanPeriod = DEFAULT_LOAN_PERIOD;
+    private volatile Period holdPeriod = DEFAULT_HOLD_PERIOD;
+    private volatile IntegrityMode integrityMode = IntegrityMode.BLOCK;
     private BookService bookService;
     private UserService userService;
+    private Journal journal;
+    private LibraryMetrics metrics = LibraryMetrics.getInstance();
+    private ChangeStream stream;
+    private List<LoanListener> listeners = new CopyOnWriteArrayList<>();
 
     public LoanService(BookService bookService, UserService userService) {
+        this(bookService, userService, new LoanHistory());
+    }
+
+    public LoanService(BookService bookService, UserService userService, LoanRepository history) {
         this.bookService = bookService;
         this.userService = userService;
-        this.loans = new ArrayList<>();
+        this.activeLoans = new ConcurrentHashMap<>();
+        this.activeLoansByUser = new ConcurrentHashMap<>();
+        this.activeByLoanDate = new SortedIndex<>();
+        this.history = history;
+        this.changes = new ChangeLog<>(Loan::new);
+        this.overdue = new OverdueScheduler();
+        this.holds = new HoldQueues();
+        userService.setDeleteHook(new UserDeleteHook() {
+            @Override
+            public boolean allowDelete(String id) {
+                // Con BLOCK se cierra la entrada solo si esta vacia, en el mismo paso
+                return integrityMode != IntegrityMode.BLOCK
+                        || activeLoansByUser.compute(id, (key, active) -> active == null || active.isEmpty() ? closed : active) == closed;
+            }
+
+            @Override
+            public void beforeDelete(String id) {
+                // Sus reservas se cancelan en cualquier modo; al repetir la bitacora el
+                // DELETE_USER las vuelve a cancelar, por eso no se anotan aparte
+                holds.cancelAll(id);
+                if (integrityMode == IntegrityMode.CASCADE) {
+                    returnAll(id, LocalDate.now());
+                }
+            }
+
+            @Override
+            public void afterDelete(String id) {
+                // Ya sin el usuario, el registro de prestamos lo rechaza por no existir. Si
+                // el borrado fallo, quitar la marca vuelve a abrir la entrada
+                activeLoansByUser.remove(id, closed);
+            }
+        });
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Publica cada cambio en el flujo. Con BLOCK, un suscriptor detenido frena las escrituras
+    public void setChangeStream(ChangeStream stream) {
+        this.stream = stream;
+    }
+
+    public void addLoanListener(LoanListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeLoanListener(LoanListener listener) {
+        listeners.remove(listener);
+    }
+
+    public IntegrityMode getIntegrityMode() {
+        return integrityMode;
+    }
+
+    public void setIntegrityMode(IntegrityMode integrityMode) {
+        this.integrityMode = integrityMode;
+    }
+
+    public Period getLoanPeriod() {
+        return loanPeriod;
+    }
+
+    // Plazo con el que se calcula la fecha de vencimiento de los nuevos prestamos
+    public void setLoanPeriod(Period loanPeriod) {
+        this.loanPeriod = loanPeriod;
+    }
+
+    public Period getHoldPeriod() {
+        return holdPeriod;
+    }
+
+    // Cuanto tiempo se mantiene una reserva en la cola antes de vencer
+    public void setHoldPeriod(Period holdPeriod) {
+        this.holdPeriod = holdPeriod;
     }
 
     public void addLoan(String id, String isbn) throws NotFoundException {
-        var user = userService.getUserById(id);
-        var book = bookService.getBookByIsbn(isbn);
+        addLoan(id, isbn, LocalDate.now());
+    }
 
-        for (var loan : loans){
-            if (loan.getBook().getIsbn().equals(isbn) && loan.getState().equals(LoanState.STARTED)){
+    public void addLoan(String id, String isbn, LocalDate loanDate) throws NotFoundException {
+        addLoan(id, isbn, loanDate, loanDate.plus(loanPeriod));
+    }
+
+    public void addLoan(String id, String isbn, LocalDate loanDate, LocalDate dueDate) throws NotFoundException {
+        var start = metrics.start();
+        var outcome = Outcome.ERROR;
+        try {
+            var user = userService.getUserById(id);
+            var book = bookService.getBookByIsbn(isbn);
+            if (!claim(id, user, book, loanDate, dueDate)) {
                 throw new NotFoundException("El libro con isbn " + isbn + " ya se encuentra prestado y debe ser devuelto antes de volver a prestar.");
             }
+            outcome = Outcome.SUCCESS;
+        } catch (NotFoundException e) {
+            outcome = Outcome.MISS;
+            throw e;
+        } finally {
+            metrics.stop(Operation.ADD_LOAN, start, outcome);
+        }
+    }
+
+    // Presta varios libros a un mismo usuario: el usuario se busca una sola vez y cada
+    // libro se presta o se reporta con su error sin detener el resto del lote
+    public List<LoanResult> addLoans(String id, List<String> isbns) throws NotFoundException {
+        var user = userService.getUserById(id);
+        var loanDate = LocalDate.now();
+        var dueDate = loanDate.plus(loanPeriod);
+        var results = new ArrayList<LoanResult>(isbns.size());
+        var seen = new HashSet<String>();
+        for (var isbn : isbns) {
+            try {
+                var book = bookService.getBookByIsbn(isbn);
+                // Se compara el isbn guardado: dos escrituras del mismo libro son repetidos
+                if (!seen.add(book.getIsbn())) {
+                    results.add(new LoanResult(id, isbn, "El libro con isbn " + isbn + " esta repetido en el lote"));
+                    continue;
+                }
+                var lent = claim(id, user, book, loanDate, dueDate);
+                results.add(new LoanResult(id, isbn, lent ? null : "El libro con isbn " + isbn + " ya se encuentra prestado"));
+            } catch (NotFoundException e) {
+                results.add(new LoanResult(id, isbn, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    public Optional<Hold> addLoanOrHold(String id, String isbn) throws NotFoundException {
+        return addLoanOrHold(id, isbn, LocalDate.now());
+    }
+
+    // Presta el libro si esta disponible; si esta prestado deja al usuario en la cola de
+    // reservas del isbn y devuelve la reserva. Cuando se devuelva, el libro se presta
+    // solo al primero de la cola, sin que el usuario tenga que reintentar
+    public Optional<Hold> addLoanOrHold(String id, String isbn, LocalDate date) throws NotFoundException {
+        var user = userService.getUserById(id);
+        var book = bookService.getBookByIsbn(isbn);
+        var loan = new Loan(user, book, date, date.plus(loanPeriod), LoanState.STARTED, null);
+        var hold = new Hold[1];
+        Loan claimed;
+        var entered = enterJournal();
+        try {
+            claimed = activeLoans.compute(book.getIsbn(), (key, current) -> {
+                if (current != null && current.getState() == LoanState.STARTED) {
+                    if (current.getUser().getId().equals(id)) {
+                        throw new DuplicateException("El usuario " + id + " ya tiene prestado el libro con isbn " + key);
+                    }
+                    // Si ya esperaba el libro conserva su lugar y no hay nada que anotar
+                    hold[0] = holds.get(id, key);
+                    if (hold[0] == null) {
+                        var expiryDate = date.plus(holdPeriod);
+                        log(JournalRecordType.PLACE_HOLD, date, id, key, Long.toString(expiryDate.toEpochDay()));
+                        hold[0] = holds.place(id, key, date, expiryDate);
+                    }
+                    return current;
+                }
+                return replace(current, id, key, loan);
+            });
+        } finally {
+            exitJournal(entered);
+        }
+        if (claimed == null) {
+            throw new NotFoundException("No existe el usuario con el id: ", id);
+        }
+        return Optional.ofNullable(hold[0]);
+    }
+
+    // Devuelve false si el usuario no tenia reserva sobre el libro. Se cancela dentro del
+    // compute del isbn para que la bitacora la ordene bien respecto a las devoluciones
+    public boolean cancelHold(String id, String isbn) {
+        var cancelled = new boolean[1];
+        var entered = enterJournal();
+        try {
+            activeLoans.compute(bookService.canonicalIsbn(isbn), (key, current) -> {
+                if (holds.get(id, key) != null) {
+                    log(JournalRecordType.CANCEL_HOLD, null, id, key);
+                    cancelled[0] = holds.cancel(id, key) != null;
+                }
+                return current;
+            });
+        } finally {
+            exitJournal(entered);
+        }
+        return cancelled[0];
+    }
+
+    // Reservas en espera del libro, en orden de llegada
+    public List<Hold> getHolds(String isbn) {
+        return holds.getHolds(bookService.canonicalIsbn(isbn));
+    }
+
+    // Quita de las colas las reservas que vencieron antes del dia indicado
+    public List<Hold> expireHolds(LocalDate today) {
+        var expired = new ArrayList<Hold>();
+        for (var isbn : holds.expiredIsbns(today)) {
+            expired.addAll(expireHolds(isbn, today));
         }
+        return expired;
+    }
+
+    // Vence las reservas de un libro dentro del compute de su isbn, igual que se ponen y
+    // se cancelan, asi la bitacora las ordena bien respecto a las reservas nuevas
+    public List<Hold> expireHolds(String isbn, LocalDate today) {
+        var expired = new ArrayList<Hold>();
+        var entered = enterJournal();
+        try {
+            activeLoans.compute(bookService.canonicalIsbn(isbn), (key, current) -> {
+                if (holds.hasExpired(key, today)) {
+                    log(JournalRecordType.EXPIRE_HOLDS, today, key);
+                    expired.addAll(holds.expire(key, today));
+                }
+                return current;
+            });
+        } finally {
+            exitJournal(entered);
+        }
+        return expired;
+    }
 
-        loans.add(new Loan(user, book));
+    // Todas las reservas en espera; las de un mismo libro en orden de llegada
+    public List<Hold> getAllHolds() {
+        return holds.findAll();
+    }
+
+    // Vuelve a poner una reserva al final de la cola de su libro (snapshot o bitacora)
+    public void restoreHold(Hold hold) {
+        activeLoans.compute(hold.getIsbn(), (key, current) -> {
+            holds.place(hold.getUserId(), key, hold.getPlacedDate(), hold.getExpiryDate());
+            return current;
+        });
     }
 
     public void returnBook(String id, String isbn) throws NotFoundException {
-        for (var loan : loans) {
-            if (loan.getUser().getId().equals(id)
-                    && loan.getBook().getIsbn().equals(isbn)
-                    && loan.getState().equals(LoanState.STARTED)) {
-                loan.setState(LoanState.FINISHED);
-                return; 
-            }
+        returnBook(id, isbn, LocalDate.now());
+    }
+
+    public void returnBook(String id, String isbn, LocalDate returnDate) throws NotFoundException {
+        returnBook(id, isbn, returnDate, null);
+    }
+
+    // Si la devolucion pasa el libro al primero de la cola, su prestamo vence en
+    // promotedDueDate (null: el plazo actual). Asi la bitacora repite el vencimiento original
+    public void returnBook(String id, String isbn, LocalDate returnDate, LocalDate promotedDueDate) throws NotFoundException {
+        if (!release(id, isbn, returnDate, promotedDueDate)) {
+            throw new NotFoundException("No hay un prestamo del libro: " + isbn + " para el usuario: " + id);
+        }
+    }
+
+    // Igual que returnBook pero indica con false que no habia prestamo, sin excepcion
+    public boolean tryReturnBook(String id, String isbn) {
+        return release(id, isbn, LocalDate.now(), null);
+    }
+
+    // Devuelve varios libros (por ejemplo en la conciliacion nocturna) y reporta el
+    // resultado de cada uno sin detener el resto del lote
+    public List<LoanResult> returnBooks(List<LoanRequest> requests) {
+        var returnDate = LocalDate.now();
+        var results = new ArrayList<LoanResult>(requests.size());
+        for (var request : requests) {
+            var returned = release(request.getUserId(), request.getIsbn(), returnDate, null);
+            results.add(new LoanResult(request.getUserId(), request.getIsbn(), returned ? null
+                    : "No hay un prestamo del libro: " + request.getIsbn() + " para el usuario: " + request.getUserId()));
+        }
+        return results;
+    }
+
+    // Vuelve a cargar un prestamo tal cual (por ejemplo desde un snapshot), sin validar
+    // que el usuario o el libro sigan existiendo
+    public void restoreLoan(Loan loan) {
+        if (loan.getState() == LoanState.STARTED) {
+            activeLoans.put(loan.getBook().getIsbn(), loan);
+            userLoans(loan.getUser().getId()).add(loan);
+            activeByLoanDate.add(loanDateKey(loan), loan.getBook().getIsbn(), loan);
+            overdue.schedule(loan);
+            notifyStarted(loan);
+        } else {
+            history.add(loan);
+            notifyStarted(loan);
+            notifyFinished(loan);
         }
-        throw new NotFoundException("No hay un prestamo del libro: " + isbn + " para el usuario: " + id);
+        changes.record(ChangeType.ADDED, loan.getBook().getIsbn(), loan);
     }
 
     public List<Loan> getLoans() {
+        var loans = history.findAll();
+        loans.addAll(activeLoans.values());
+        return loans;
+    }
+
+    // Lista fija de todos los prestamos que se puede recorrer mientras se siguen prestando
+    // y devolviendo libros. Los Loan son copias: una devolucion posterior no los cambia
+    public VersionedList<Loan> getLoansSnapshot() {
+        return changes.snapshot(this::getLoans);
+    }
+
+    // Un libro prestado llega como ADDED y su devolucion como UPDATED, con el isbn como clave
+    public List<Change<Loan>> getLoanChangesSince(long version) {
+        return changes.changesSince(version);
+    }
+
+    // Prestamos activos ordenados por fecha de prestamo. Se pasa el nextCursor de la
+    // pagina anterior, o null para la primera
+    public Page<Loan> getActiveLoansPage(String cursor, int limit) {
+        return activeByLoanDate.page(cursor, limit);
+    }
+
+    // Prestamos activos que vencieron antes del dia indicado
+    public List<Loan> getOverdueLoans(LocalDate today) {
+        return overdue.getOverdueLoans(today);
+    }
+
+    public Optional<Loan> findActiveLoan(String isbn) {
+        var loan = activeLoans.get(bookService.canonicalIsbn(isbn));
+        return loan != null && loan.getState() == LoanState.STARTED ? Optional.of(loan) : Optional.empty();
+    }
+
+    public boolean isAvailable(String isbn) {
+        var loan = activeLoans.get(bookService.canonicalIsbn(isbn));
+        return loan == null || loan.getState() != LoanState.STARTED;
+    }
+
+    public boolean hasActiveLoans(String id) {
+        var active = activeLoansByUser.get(id);
+        return active != null && !active.isEmpty();
+    }
+
+    // Lista vacia si el usuario no tiene prestamos
+    public List<Loan> findLoansByUserId(String id) {
+        var loans = history.findByUserId(id);
+        var active = activeLoansByUser.get(id);
+        if (active != null) {
+            loans.addAll(active);
+        }
         return loans;
     }
 
     public List<Loan> getLoansByUserId(String id) throws NotFoundException{
+        var loans = findLoansByUserId(id);
+        if (loans.isEmpty()) {
+            throw new NotFoundException("No se encontraron prestamos para el usuario con id: ", id);
+        }
+        return loans;
+    }
+
+    // Los prestamos y las reservas se indexan por el isbn guardado en el catalogo, no por
+    // el que escribio quien llama (el catalogo compacto acepta ISBN-10 y ISBN-13)
+    private boolean claim(String id, User user, Book book, LocalDate loanDate, LocalDate dueDate) throws NotFoundException {
+        var isbn = book.getIsbn();
+        var loan = new Loan(user, book, loanDate, dueDate, LoanState.STARTED, null);
+        // Todo lo que depende del isbn (indices y bitacora) se actualiza dentro del reclamo,
+        // en el mismo orden en que se prestan y devuelven las copias
+        Loan claimed;
+        var entered = enterJournal();
+        try {
+            claimed = activeLoans.compute(isbn, (key, current) -> {
+                if (current != null && current.getState() == LoanState.STARTED) {
+                    return current;
+                }
+                return replace(current, id, isbn, loan);
+            });
+        } finally {
+            exitJournal(entered);
+        }
+        if (claimed == null) {
+            throw new NotFoundException("No existe el usuario con el id: ", id);
+        }
+        return claimed == loan;
+    }
+
+    // Se llama dentro del compute del isbn en lugar de un prestamo que ya no esta activo.
+    // Devuelve el nuevo valor de la entrada: el prestamo, o null si el usuario ya no existe
+    private Loan replace(Loan current, String id, String isbn, Loan loan) {
+        var started = start(id, isbn, loan, () -> logLoan(id, isbn, loan));
+        if (current != null) {
+            // Terminado por fuera del servicio: se archiva al salir de la entrada
+            archive(current);
+        }
+        return started ? loan : null;
+    }
+
+    // Se llama dentro del compute del isbn. Devuelve false sin tocar nada si el usuario
+    // se borro (o se esta borrando) despues de buscarlo. journal (si no es null) anota el
+    // prestamo antes de cambiar cualquier indice: si la bitacora falla, la excepcion sale
+    // del compute y no queda nada a medias
+    private boolean start(String id, String isbn, Loan loan, Runnable journal) {
+        var registered = new boolean[1];
+        activeLoansByUser.compute(id, (key, active) -> {
+            if (active == closed || userService.findUserById(id).isEmpty()) {
+                return active;
+            }
+            if (journal != null) {
+                journal.run();
+            }
+            var loans = active != null ? active : ConcurrentHashMap.<Loan>newKeySet();
+            loans.add(loan);
+            registered[0] = true;
+            return loans;
+        });
+        if (!registered[0]) {
+            return false;
+        }
+        activeByLoanDate.add(loanDateKey(loan), isbn, loan);
+        overdue.schedule(loan);
+        notifyStarted(loan);
+        changes.record(ChangeType.ADDED, isbn, loan);
+        publish(ChangeType.ADDED, isbn, id, loan.getLoanDate());
+        return true;
+    }
+
+    private void logLoan(String id, String isbn, Loan loan) {
+        log(JournalRecordType.ADD_LOAN, loan.getLoanDate(), id, isbn, Long.toString(loan.getDueDate().toEpochDay()));
+    }
+
+    private boolean release(String id, String requestedIsbn, LocalDate returnDate, LocalDate promotedDueDate) {
+        var isbn = bookService.canonicalIsbn(requestedIsbn);
+        var loan = activeLoans.get(isbn);
+        if (loan == null || !loan.getUser().getId().equals(id)) {
+            return false;
+        }
+        var returned = new boolean[1];
+        var entered = enterJournal();
+        try {
+            activeLoans.computeIfPresent(isbn, (key, current) -> {
+                if (current != loan || current.getState() != LoanState.STARTED) {
+                    return current;
+                }
+                var dueDate = promotedDueDate != null ? promotedDueDate : returnDate.plus(loanPeriod);
+                // Se anota antes de tocar nada. La promocion no se anota como ADD_LOAN: al repetir
+                // la devolucion con las mismas reservas se vuelve a elegir al mismo usuario, y
+                // aqui va su vencimiento por si hay alguien en la cola
+                if (holds.hasHolds(isbn)) {
+                    log(JournalRecordType.RETURN_BOOK, returnDate, id, isbn, Long.toString(dueDate.toEpochDay()));
+                } else {
+                    log(JournalRecordType.RETURN_BOOK, returnDate, id, isbn);
+                }
+                current.setState(LoanState.FINISHED);
+                current.setReturnDate(returnDate);
+                archive(current);
+                notifyFinished(current);
+                changes.record(ChangeType.UPDATED, isbn, current);
+                publish(ChangeType.UPDATED, isbn, id, returnDate);
+                returned[0] = true;
+                return promote(isbn, current.getBook(), returnDate, dueDate);
+            });
+        } finally {
+            exitJournal(entered);
+        }
+        return returned[0];
+    }
+
+    // Presta el libro devuelto al primer usuario de su cola que siga existiendo. Solo
+    // mira la cola de este isbn; las reservas vencidas del frente se descartan al pasar
+    private Loan promote(String isbn, Book book, LocalDate date, LocalDate dueDate) {
+        while (holds.hasHolds(isbn)) {
+            var holder = new User[1];
+            var hold = holds.poll(isbn, date, candidate -> {
+                holder[0] = userService.findUserById(candidate.getUserId()).orElse(null);
+                return holder[0] != null;
+            });
+            if (hold == null) {
+                return null;
+            }
+            var loan = new Loan(holder[0], book, date, dueDate, LoanState.STARTED, null);
+            if (start(hold.getUserId(), isbn, loan, null)) {
+                return loan;
+            }
+            // El usuario se borro entre la busqueda y el prestamo
+            hold.setState(HoldState.CANCELLED);
+        }
+        return null;
+    }
 
-        for (var loan : loans) {
-            if (loan.getUser().getId().equals(id)) {
-                return loans;
+    // Cierra la entrada del usuario y devuelve los prestamos que tenia. Ya cerrada, un
+    // prestamo que llegue al mismo tiempo que el borrado se rechaza en start
+    private void returnAll(String id, LocalDate returnDate) {
+        var active = activeLoansByUser.put(id, closed);
+        if (active == null) {
+            return;
+        }
+        var returned = false;
+        try {
+            for (var loan : active) {
+                release(id, loan.getBook().getIsbn(), returnDate, null);
+            }
+            returned = true;
+        } finally {
+            if (!returned) {
+                // Si una devolucion falla, la entrada vuelve a tener los que siguen activos
+                active.removeIf(loan -> loan.getState() != LoanState.STARTED);
+                activeLoansByUser.replace(id, closed, active);
             }
         }
+    }
+
+    // Nunca agrega en la marca de cerrado: si la entrada esta cerrada se abre una nueva
+    private Set<Loan> userLoans(String id) {
+        return activeLoansByUser.compute(id, (key, active) -> active == null || active == closed ? ConcurrentHashMap.newKeySet() : active);
+    }
+
+    private void archive(Loan loan) {
+        overdue.cancel(loan);
+        activeByLoanDate.remove(loanDateKey(loan), loan.getBook().getIsbn());
+        var userLoans = activeLoansByUser.get(loan.getUser().getId());
+        if (userLoans != null && userLoans != closed) {
+            userLoans.remove(loan);
+        }
+        history.add(loan);
+    }
+
+    private static String loanDateKey(Loan loan) {
+        return loan.getLoanDate().toString();
+    }
+
+    private void publish(ChangeType type, String isbn, String id, LocalDate date) {
+        if (stream != null) {
+            stream.publish(EntityType.LOAN, type, isbn, id, date.toEpochDay());
+        }
+    }
+
+    private void notifyStarted(Loan loan) {
+        for (var listener : listeners) {
+            listener.loanStarted(loan);
+        }
+    }
+
+    private void notifyFinished(Loan loan) {
+        for (var listener : listeners) {
+            listener.loanFinished(loan);
+        }
+    }
+
+    // Las operaciones que anotan antes de aplicar van entre enterJournal y exitJournal,
+    // para que un snapshot no marque un registro cuyo cambio aun no esta en memoria.
+    // Devuelve la bitacora en la que se entro (null si no hay)
+    private Journal enterJournal() {
+        var current = journal;
+        if (current != null) {
+            current.enter();
+        }
+        return current;
+    }
 
-        throw new NotFoundException("No se encontraron prestamos para el usuario con id: " + id);
+    private void exitJournal(Journal entered) {
+        if (entered != null) {
+            entered.exit();
+        }
+    }
+
+    private void log(JournalRecordType type, LocalDate date, String... fields) {
+        if (journal != null) {
+            journal.append(type, date, fields);
+        }
     }
 }
@@ -0,0 +1,14 @@
+package com.devsenior.service;
+
+// Lo registra LoanService para participar en el borrado de usuarios
+public interface UserDeleteHook {
+
+    // false si el usuario no se puede borrar en el modo actual
+    boolean allowDelete(String id);
+
+    // Se llama justo antes de quitar al usuario, ya validado
+    void beforeDelete(String id);
+
+    // Se llama al terminar el borrado, haya salido bien o no
+    void afterDelete(String id);
+}
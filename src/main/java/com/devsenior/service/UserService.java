@@ -1,51 +1,396 @@
 package com.devsenior.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.devsenior.exception.DuplicateException;
+import com.devsenior.events.ChangeStream;
+import com.devsenior.events.EntityType;
 import com.devsenior.exception.NotFoundException;
+import com.devsenior.exception.ReferentialIntegrityException;
+import com.devsenior.metrics.LibraryMetrics;
+import com.devsenior.metrics.Operation;
+import com.devsenior.metrics.OperationStats.Outcome;
+import com.devsenior.importer.DelimitedReader;
+import com.devsenior.importer.ImportResult;
+import com.devsenior.importer.RowError;
+import com.devsenior.importer.RowErrorType;
+import com.devsenior.model.DeleteResult;
 import com.devsenior.model.User;
+import com.devsenior.pagination.Page;
+import com.devsenior.pagination.SortedIndex;
+import com.devsenior.pagination.UserSort;
+import com.devsenior.persistence.Journal;
+import com.devsenior.persistence.JournalRecordType;
+import com.devsenior.repository.InMemoryUserRepository;
+import com.devsenior.repository.UserRepository;
+import com.devsenior.snapshot.Change;
+import com.devsenior.snapshot.ChangeLog;
+import com.devsenior.snapshot.ChangeType;
+import com.devsenior.snapshot.VersionedList;
 
 public class UserService {
-    private List<User> users = new ArrayList<>();
 
+    private static final String[] IMPORT_HEADER = {"id", "name", "email"};
+
+    // Las escrituras se serializan en el servicio; las lecturas no bloquean
+    private UserRepository users;
+    // Email normalizado -> usuario; tambien garantiza que no haya dos usuarios con el mismo email
+    private Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private ChangeLog<User> changes = new ChangeLog<>(User::new);
+    // Orden por nombre y por fecha de registro para paginar sin copiar los usuarios
+    private SortedIndex<User> byName = new SortedIndex<>();
+    private SortedIndex<User> byRegisterDate = new SortedIndex<>();
+    private Journal journal;
+    private UserDeleteHook deleteHook;
+    // Serializa las escrituras, igual que en BookService
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private LibraryMetrics metrics = LibraryMetrics.getInstance();
+    private ChangeStream stream;
+
+    public UserService() {
+        this(new InMemoryUserRepository());
+    }
+
+    public UserService(UserRepository users) {
+        this.users = users;
+    }
 
     public void addUser(String id, String name, String email){
-        users.add(new User(id, name, email));
+        addUser(new User(id, name, email));
     }
 
     public void addUser(String id, String name, String email, LocalDate registerDate){
-        users.add(new User(id, name, email, registerDate));
+        addUser(new User(id, name, email, registerDate));
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Publica cada cambio en el flujo. Con BLOCK, un suscriptor detenido frena las escrituras
+    public void setChangeStream(ChangeStream stream) {
+        this.stream = stream;
+    }
+
+    // Solo admite uno: lo registra el LoanService que usa este servicio
+    public void setDeleteHook(UserDeleteHook deleteHook) {
+        writeLock.lock();
+        try {
+            if (this.deleteHook != null) {
+                throw new IllegalStateException("El servicio de usuarios ya tiene un hook de borrado registrado");
+            }
+            this.deleteHook = deleteHook;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public ImportResult importUsers(Path file) throws IOException {
+        try (var input = Files.newInputStream(file)) {
+            return importUsers(input, DelimitedReader.delimiterFor(file));
+        }
+    }
+
+    // Carga masiva con columnas id, name, email y registerDate (opcional, yyyy-MM-dd).
+    // Las filas repetidas o invalidas se reportan y el lote se publica en un solo paso
+    public ImportResult importUsers(InputStream input, char delimiter) throws IOException {
+        writeLock.lock();
+        try {
+            var staged = new LinkedHashMap<String, User>();
+            var stagedEmails = new HashSet<String>();
+            var errors = new ArrayList<RowError>();
+
+            var reader = new DelimitedReader<User>(delimiter, IMPORT_HEADER, UserService::parseUser);
+            reader.read(input, row -> {
+                if (!row.isValid()) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.INVALID, row.getError()));
+                    return;
+                }
+                var user = row.getValue();
+                var email = normalizeEmail(user.getEmail());
+                if (users.contains(user.getId()) || staged.containsKey(user.getId())) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.DUPLICATE, "Ya existe el usuario con el id: " + user.getId()));
+                } else if (usersByEmail.containsKey(email) || !stagedEmails.add(email)) {
+                    errors.add(new RowError(row.getLine(), RowErrorType.DUPLICATE, "Ya existe un usuario con el email: " + user.getEmail()));
+                } else {
+                    staged.put(user.getId(), user);
+                }
+            });
+
+            users.addAll(staged.values());
+            for (var user : staged.values()) {
+                usersByEmail.put(normalizeEmail(user.getEmail()), user);
+                index(user);
+                changes.record(ChangeType.ADDED, user.getId(), user);
+                publish(ChangeType.ADDED, user.getId());
+                logAddUser(user);
+            }
+            return new ImportResult(staged.size(), errors);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Carga en un solo paso usuarios que ya son durables (snapshot), sin pasar por la bitacora
+    public void restoreUsers(Collection<User> restored) {
+        writeLock.lock();
+        try {
+            var added = users.addAll(restored);
+            byName.addAll(added, UserService::nameKey, User::getId);
+            byRegisterDate.addAll(added, UserService::registerDateKey, User::getId);
+            for (var user : added) {
+                usersByEmail.put(normalizeEmail(user.getEmail()), user);
+                changes.record(ChangeType.ADDED, user.getId(), user);
+                publish(ChangeType.ADDED, user.getId());
+            }
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     public List<User> getAllUsers(){
-        return users;
+        return users.findAll();
+    }
+
+    // Lista fija de los usuarios que se puede recorrer sin bloquear a los escritores. Los
+    // User son copias: un cambio de nombre o email posterior no se ve en la lista
+    public VersionedList<User> getUsersSnapshot() {
+        return changes.snapshot(this::getAllUsers);
+    }
+
+    public List<Change<User>> getUserChangesSince(long version) {
+        return changes.changesSince(version);
+    }
+
+    // Consulta sin excepcion para los caminos donde no encontrar el usuario es lo normal
+    public Optional<User> findUserById(String id) {
+        return Optional.ofNullable(users.get(id));
+    }
+
+    public Optional<User> findUserByEmail(String email) {
+        return Optional.ofNullable(usersByEmail.get(normalizeEmail(email)));
+    }
+
+    // Busqueda por email sin distinguir mayusculas ni espacios alrededor
+    public User getUserByEmail(String email) throws NotFoundException {
+        var user = usersByEmail.get(normalizeEmail(email));
+        if (user == null) {
+            throw new NotFoundException("No existe el usuario con el email: ", email);
+        }
+        return user;
     }
 
     public User getUserById(String id) throws NotFoundException{
-        for (var user : users) {
-            if(user.getId().equals(id)){
-                return user;
-            }
+        var start = metrics.start();
+        var user = users.get(id);
+        if (user == null) {
+            metrics.stop(Operation.GET_USER_BY_ID, start, Outcome.MISS);
+            throw new NotFoundException("No existe el usuario con el id: ", id);
         }
+        metrics.stop(Operation.GET_USER_BY_ID, start, Outcome.SUCCESS);
+        return user;
+    }
 
-        throw new NotFoundException("No existe el usuario con el id: " + id);
+    // Pagina ordenada por nombre (sin distinguir mayusculas) o por fecha de registro. Se
+    // pasa el nextCursor de la pagina anterior, o null para la primera
+    public Page<User> getUsersPage(UserSort sort, String cursor, int limit) {
+        return (sort == UserSort.NAME ? byName : byRegisterDate).page(cursor, limit);
     }
 
     public void updateUserEmail(String id, String email) throws NotFoundException{
-        var user = getUserById(id);
-        user.setEmail(email); 
+        writeLock.lock();
+        try {
+            var user = getUserById(id);
+            var key = normalizeEmail(email);
+            var owner = usersByEmail.putIfAbsent(key, user);
+            if (owner != null && !owner.getId().equals(id)) {
+                throw new DuplicateException("Ya existe un usuario con el email: " + email);
+            }
+            var previous = normalizeEmail(user.getEmail());
+            if (!previous.equals(key)) {
+                usersByEmail.remove(previous);
+            }
+            user.setEmail(email);
+            users.update(user);
+            changes.record(ChangeType.UPDATED, id, user);
+            publish(ChangeType.UPDATED, id);
+            log(JournalRecordType.UPDATE_USER_EMAIL, id, email);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     public void updateUserName(String id, String name) throws NotFoundException{
-        var user = getUserById(id);
-        user.setName(name);
+        writeLock.lock();
+        try {
+            var user = getUserById(id);
+            byName.remove(nameKey(user), id);
+            user.setName(name);
+            users.update(user);
+            byName.add(nameKey(user), id, user);
+            changes.record(ChangeType.UPDATED, id, user);
+            publish(ChangeType.UPDATED, id);
+            log(JournalRecordType.UPDATE_USER_NAME, id, name);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     public void deleteUser(String id) throws NotFoundException{
-        var user = getUserById(id);
-        users.remove(user);
+        writeLock.lock();
+        try {
+            if (!users.contains(id)) {
+                throw new NotFoundException("No existe el usuario con el id: ", id);
+            }
+            if (deleteHook != null && !deleteHook.allowDelete(id)) {
+                throw new ReferentialIntegrityException("El usuario con id " + id + " tiene prestamos activos y no se puede borrar");
+            }
+            remove(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Borrado masivo en una sola pasada: cada id cuesta una consulta al indice de
+    // prestamos activos, asi que purgar usuarios inactivos no depende del total de prestamos
+    public DeleteResult deleteUsers(Collection<String> ids) {
+        writeLock.lock();
+        try {
+            var deleted = 0;
+            var missing = new ArrayList<String>();
+            var blocked = new ArrayList<String>();
+            for (var id : ids) {
+                if (!users.contains(id)) {
+                    missing.add(id);
+                } else if (deleteHook != null && !deleteHook.allowDelete(id)) {
+                    blocked.add(id);
+                } else {
+                    remove(id);
+                    deleted++;
+                }
+            }
+            return new DeleteResult(deleted, missing, blocked);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // afterDelete va en el finally: si algo falla, el hook vuelve a abrir lo que cerro
+    private void remove(String id) {
+        try {
+            if (deleteHook != null) {
+                deleteHook.beforeDelete(id);
+            }
+            // Se anota antes de quitarlo, como los prestamos: si la bitacora falla el usuario sigue
+            log(JournalRecordType.DELETE_USER, id);
+            var user = users.remove(id);
+            usersByEmail.remove(normalizeEmail(user.getEmail()));
+            byName.remove(nameKey(user), id);
+            byRegisterDate.remove(registerDateKey(user), id);
+            changes.record(ChangeType.REMOVED, id, user);
+            publish(ChangeType.REMOVED, id);
+        } finally {
+            if (deleteHook != null) {
+                deleteHook.afterDelete(id);
+            }
+        }
+    }
+
+    private void addUser(User user) {
+        writeLock.lock();
+        try {
+            var email = normalizeEmail(user.getEmail());
+            if (usersByEmail.putIfAbsent(email, user) != null) {
+                throw new DuplicateException("Ya existe un usuario con el email: " + user.getEmail());
+            }
+            if (users.add(user) == null) {
+                usersByEmail.remove(email, user);
+                throw new DuplicateException("Ya existe el usuario con el id: " + user.getId());
+            }
+            index(user);
+            changes.record(ChangeType.ADDED, user.getId(), user);
+            publish(ChangeType.ADDED, user.getId());
+            logAddUser(user);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void publish(ChangeType type, String id) {
+        if (stream != null) {
+            stream.publish(EntityType.USER, type, id, null, Long.MIN_VALUE);
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void index(User user) {
+        byName.add(nameKey(user), user.getId(), user);
+        byRegisterDate.add(registerDateKey(user), user.getId(), user);
+    }
+
+    private static String nameKey(User user) {
+        return user.getName().toLowerCase(Locale.ROOT);
+    }
+
+    // ISO yyyy-MM-dd ordena igual como texto que como fecha
+    private static String registerDateKey(User user) {
+        return user.getRegisterDate() == null ? "" : user.getRegisterDate().toString();
+    }
+
+    private void logAddUser(User user) {
+        if (journal != null) {
+            journal.append(JournalRecordType.ADD_USER, user.getRegisterDate(), user.getId(), user.getName(), user.getEmail());
+        }
+    }
+
+    private void log(JournalRecordType type, String... fields) {
+        if (journal != null) {
+            journal.append(type, null, fields);
+        }
+    }
+
+    private static User parseUser(String[] fields) {
+        if (fields.length < IMPORT_HEADER.length) {
+            throw new IllegalArgumentException("Se esperaban al menos " + IMPORT_HEADER.length + " columnas y llegaron " + fields.length);
+        }
+        var id = fields[0].trim();
+        var name = fields[1].trim();
+        var email = fields[2].trim();
+        if (id.isEmpty() || name.isEmpty()) {
+            throw new IllegalArgumentException("El id y el nombre son obligatorios");
+        }
+        if (email.indexOf('@') <= 0) {
+            throw new IllegalArgumentException("Email invalido: " + email);
+        }
+        if (fields.length > 3 && !fields[3].isBlank()) {
+            try {
+                return new User(id, name, email, LocalDate.parse(fields[3].trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Fecha de registro invalida: " + fields[3]);
+            }
+        }
+        return new User(id, name, email);
     }
-    
 }
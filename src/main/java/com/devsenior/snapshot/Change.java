@@ -0,0 +1,32 @@
+package com.devsenior.snapshot;
+
+public class Change<T> {
+
+    private final long version;
+    private final ChangeType type;
+    private final String key;
+    private final T value;
+
+    public Change(long version, ChangeType type, String key, T value) {
+        this.version = version;
+        this.type = type;
+        this.key = key;
+        this.value = value;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public T getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,100 @@
+package com.devsenior.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/*
+ * Version de un servicio y registro circular de sus ultimos cambios, sin bloqueos.
+ *
+ * Una copia se etiqueta con la version leida antes de copiar, asi que puede incluir
+ * algunos cambios posteriores: aplicar changesSince(version) encima es idempotente
+ * (agregar lo que ya esta o borrar lo que ya no esta).
+ *
+ * Los valores se congelan con freeze al anotar el cambio y al tomar la copia, asi que un
+ * Change muestra el objeto como estaba en su version y una copia no cambia aunque el
+ * servicio siga editando sus objetos. Para valores inmutables (Book, String) freeze es
+ * la identidad.
+ *
+ * Las copias no comparten estructura entre versiones: cada copia nueva cuesta O(n) y solo
+ * se reutiliza mientras la version no cambie. Mantener una estructura persistente con
+ * todos los elementos dejaria en el heap cada libro y cada prestamo terminado, justo lo
+ * que evitan el catalogo compacto y el historial por columnas.
+ */
+public class ChangeLog<T> {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReferenceArray<Change<T>> changes;
+    private final int mask;
+    private final UnaryOperator<T> freeze;
+    private volatile VersionedList<T> snapshot = new VersionedList<>(0, List.of());
+
+    public ChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeLog(int capacity) {
+        this(capacity, UnaryOperator.identity());
+    }
+
+    public ChangeLog(UnaryOperator<T> freeze) {
+        this(DEFAULT_CAPACITY, freeze);
+    }
+
+    public ChangeLog(int capacity, UnaryOperator<T> freeze) {
+        this.freeze = freeze;
+        var size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.changes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public long record(ChangeType type, String key, T value) {
+        var next = version.incrementAndGet();
+        changes.set((int) (next & mask), new Change<>(next, type, key, freeze.apply(value)));
+        return next;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Reutiliza la ultima copia mientras no haya cambios; si no, llama a copy y congela
+    // cada elemento (O(n))
+    public VersionedList<T> snapshot(Supplier<List<T>> copy) {
+        var current = snapshot;
+        var latest = version.get();
+        if (current.getVersion() == latest && latest != 0) {
+            return current;
+        }
+        var taken = new VersionedList<>(latest, copy.get().stream().map(freeze).toList());
+        snapshot = taken;
+        return taken;
+    }
+
+    // Cambios con version mayor a la indicada, en orden. Si ya no estan en el registro
+    // se lanza IllegalStateException y hay que volver a tomar una copia completa
+    public List<Change<T>> changesSince(long since) {
+        var latest = version.get();
+        if (latest - since > changes.length()) {
+            throw new IllegalStateException("Los cambios desde la version " + since + " ya no estan disponibles");
+        }
+        var result = new ArrayList<Change<T>>((int) Math.max(0, latest - since));
+        for (long next = since + 1; next <= latest; next++) {
+            var change = changes.get((int) (next & mask));
+            if (change == null || change.getVersion() < next) {
+                // Aun se esta escribiendo: se entrega hasta aqui
+                break;
+            }
+            if (change.getVersion() > next) {
+                throw new IllegalStateException("Los cambios desde la version " + since + " ya no estan disponibles");
+            }
+            result.add(change);
+        }
+        return result;
+    }
+}
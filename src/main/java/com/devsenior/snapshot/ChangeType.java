@@ -0,0 +1,5 @@
+package com.devsenior.snapshot;
+
+public enum ChangeType {
+    ADDED, UPDATED, REMOVED;
+}
@@ -0,0 +1,24 @@
+package com.devsenior.snapshot;
+
+import java.util.List;
+
+// Lista que no cambia junto con la version del servicio en que se tomo. ChangeLog ya
+// congela los elementos, asi que tampoco cambian si el servicio edita los suyos
+public class VersionedList<T> {
+
+    private final long version;
+    private final List<T> items;
+
+    public VersionedList(long version, List<T> items) {
+        this.version = version;
+        this.items = List.copyOf(items);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+}
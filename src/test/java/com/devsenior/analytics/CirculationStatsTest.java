@@ -0,0 +1,65 @@
+package com.devsenior.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+public class CirculationStatsTest {
+
+    private LoanService loanService;
+    private CirculationStats stats;
+
+    @BeforeEach // Cada prueba arranca con sus propios servicios y estadisticas
+    void setUp() {
+        var bookService = new BookService();
+        var userService = new UserService();
+        loanService = new LoanService(bookService, userService);
+        stats = new CirculationStats();
+        loanService.addLoanListener(stats);
+
+        bookService.addBook("111", "Aprendiendo Java", "Cesar Diaz");
+        bookService.addBook("222", "Aprendiendo Python", "Cesar Diaz");
+        bookService.addBook("333", "Programacion", "Anderson Mesa");
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        userService.addUser("2", "Andres Mesa", "andres@email.com");
+    }
+
+    @DisplayName("Los contadores siguen los prestamos y las devoluciones del servicio")
+    @Test
+    void testCountersFollowLoansAndReturns() throws NotFoundException {
+        // GIVEN - tres libros y dos usuarios cargados en setUp
+        var day = LocalDate.of(2024, 3, 1);
+
+        // WHEN - cinco prestamos en tres dias, dos de ellos devueltos
+        loanService.addLoan("1", "111", day);
+        loanService.returnBook("1", "111", day);
+        loanService.addLoan("2", "111", day);
+        loanService.addLoan("1", "222", day.plusDays(1));
+        loanService.returnBook("2", "111", day.plusDays(2));
+        loanService.addLoan("2", "111", day.plusDays(2));
+        loanService.addLoan("2", "333", day.plusDays(2));
+
+        // THEN - el libro 111 se presto tres veces y quedan tres prestamos activos
+        var top = stats.getTopBooks(2);
+        assertEquals("111", top.get(0).getIsbn());
+        assertEquals(3, top.get(0).getCount());
+        assertEquals(1, top.get(1).getCount());
+        assertEquals(2, stats.getLoansOn(day));
+        assertEquals(1, stats.getLoansOn(day.plusDays(1)));
+        assertEquals(3, stats.getLoansPerDay(day, day.plusDays(5)).size());
+        assertEquals(2, stats.getLoansByUser("1"));
+        assertEquals(1, stats.getActiveLoansByUser("1"));
+        assertEquals(2, stats.getActiveLoansByUser("2"));
+        assertEquals(3, stats.getOnLoanCount());
+        assertEquals(5, stats.getTotalLoans());
+    }
+}
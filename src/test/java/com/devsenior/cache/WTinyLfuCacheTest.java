@@ -0,0 +1,112 @@
+package com.devsenior.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class WTinyLfuCacheTest {
+
+    @Test
+    void testReadThroughAndNegativeCaching() {
+        // GIVEN
+        var cache = new WTinyLfuCache<String, String>(10);
+        var loads = new AtomicInteger();
+
+        // WHEN
+        for (int i = 0; i < 3; i++) {
+            cache.get("a", key -> {
+                loads.incrementAndGet();
+                return "valor-" + key;
+            });
+            assertNull(cache.get("falta", key -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+        }
+
+        // THEN
+        assertEquals(2, loads.get());
+        var stats = cache.stats();
+        assertEquals(4, stats.getHits());
+        assertEquals(2, stats.getNegativeHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void testInvalidateForcesReload() {
+        // GIVEN
+        var cache = new WTinyLfuCache<String, String>(10);
+        cache.get("a", key -> null);
+
+        // WHEN
+        cache.invalidate("a");
+
+        // THEN
+        assertEquals("nuevo", cache.get("a", key -> "nuevo"));
+        assertEquals("nuevo", cache.get("a", key -> "otro"));
+    }
+
+    @Test
+    void testHotKeysSurviveScan() {
+        // GIVEN
+        var cache = new WTinyLfuCache<Integer, Integer>(100);
+        for (int round = 0; round < 20; round++) {
+            for (int key = 0; key < 50; key++) {
+                cache.get(key, k -> k);
+            }
+        }
+
+        // WHEN - un recorrido de claves que se piden una sola vez
+        for (int key = 1_000; key < 11_000; key++) {
+            cache.get(key, k -> k);
+        }
+
+        // THEN
+        var before = cache.stats().getMisses();
+        for (int key = 0; key < 50; key++) {
+            cache.get(key, k -> k);
+        }
+        assertTrue(cache.stats().getMisses() - before <= 5);
+        assertTrue(cache.stats().getSize() <= 100);
+        assertTrue(cache.stats().getEvictions() > 0);
+    }
+
+    @Test
+    void testConcurrentReadsAndWrites() throws InterruptedException {
+        // GIVEN
+        var cache = new WTinyLfuCache<Integer, Integer>(100);
+        var failed = new AtomicInteger();
+        var threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            var writer = t == 0;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    var key = i % 300;
+                    if (writer && i % 10 == 0) {
+                        cache.invalidate(key);
+                    } else if (!cache.get(key, k -> k).equals(key)) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        // WHEN
+        for (var thread : threads) {
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        var stats = cache.stats();
+        assertEquals(0, failed.get());
+        assertTrue(stats.getSize() <= 100);
+        assertEquals(150_000 + 45_000, stats.getHits() + stats.getMisses());
+    }
+}
@@ -0,0 +1,114 @@
+package com.devsenior.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.LoanState;
+import com.devsenior.service.UserService;
+
+public class ShardedLibraryTest {
+
+    private static final int BOOKS = 200;
+
+    private ShardedLibrary library;
+
+    @BeforeEach
+    void setUp() {
+        var userService = new UserService();
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        userService.addUser("2", "Andres Mesa", "andres@email.com");
+        library = new ShardedLibrary(4, userService);
+        var added = new ArrayList<CompletableFuture<?>>();
+        for (int i = 0; i < BOOKS; i++) {
+            added.add(library.addBook("isbn-" + i, "Libro " + i, "Autor " + i));
+        }
+        CompletableFuture.allOf(added.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testLoansAcrossShardsAreGathered() {
+        // GIVEN
+        var day = LocalDate.of(2024, 6, 1);
+        for (int i = 0; i < BOOKS; i += 2) {
+            library.addLoan("1", "isbn-" + i, day);
+        }
+        library.addLoan("2", "isbn-1", day);
+
+        // WHEN
+        library.returnBook("1", "isbn-0", day.plusDays(1)).join();
+        var loans = library.getLoansByUserId("1").join();
+
+        // THEN
+        assertEquals(BOOKS / 2, loans.size());
+        assertEquals(1, loans.stream().filter(loan -> loan.getState() == LoanState.FINISHED).count());
+        assertEquals(BOOKS / 2, library.countActiveLoans().join());
+    }
+
+    @Test
+    void testOperationsAfterCloseAreRejected() {
+        // GIVEN
+        var pending = library.getBookByIsbn("isbn-1");
+        library.close();
+
+        // WHEN
+        var error = assertThrows(CompletionException.class, () -> library.getBookByIsbn("isbn-2").join());
+        var gathered = assertThrows(CompletionException.class, () -> library.countActiveLoans().join());
+
+        // THEN
+        assertEquals("Libro 1", pending.join().getTitle());
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertInstanceOf(RejectedExecutionException.class, gathered.getCause());
+    }
+
+    @Test
+    void testErrorsCompleteExceptionally() {
+        // GIVEN
+        library.addLoan("1", "isbn-7").join();
+
+        // WHEN - THEN
+        assertNotFound(() -> library.addLoan("2", "isbn-7").join());
+        assertNotFound(() -> library.addLoan("9", "isbn-8").join());
+        assertNotFound(() -> library.addLoan("1", "isbn-x").join());
+        assertNotFound(() -> library.returnBook("2", "isbn-7").join());
+        assertNotFound(() -> library.getLoansByUserId("2").join());
+    }
+
+    @Test
+    void testIsbn10And13ReachTheSameBookAndLoansAreCopies() {
+        // GIVEN
+        library.addBook("0-306-40615-2", "Aprendiendo Java", "Cesar Diaz").join();
+
+        // WHEN
+        var loan = library.addLoan("1", "978-0-306-40615-7").join();
+        loan.setState(LoanState.FINISHED);
+
+        // THEN
+        assertEquals("Aprendiendo Java", library.getBookByIsbn("9780306406157").join().getTitle());
+        assertNotFound(() -> library.addLoan("2", "0306406152").join());
+        assertEquals(LoanState.STARTED, library.findLoansByUserId("1").join().get(0).getState());
+        assertEquals(LoanState.FINISHED, library.returnBook("1", "0306406152").join().getState());
+        assertEquals(0, library.countActiveLoans().join());
+    }
+
+    private static void assertNotFound(Runnable call) {
+        var error = assertThrows(CompletionException.class, call::run);
+        assertInstanceOf(NotFoundException.class, error.getCause());
+    }
+}
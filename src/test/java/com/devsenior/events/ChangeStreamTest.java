@@ -0,0 +1,122 @@
+package com.devsenior.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+import com.devsenior.snapshot.ChangeType;
+
+public class ChangeStreamTest {
+
+    @Test
+    void testSubscribersDrainIndependently() {
+        // GIVEN
+        var stream = new ChangeStream(8, BackpressurePolicy.DROP);
+        var fast = stream.subscribe();
+        var slow = stream.subscribe();
+        for (int i = 0; i < 5; i++) {
+            stream.publish(EntityType.BOOK, ChangeType.ADDED, "isbn-" + i, null, Long.MIN_VALUE);
+        }
+
+        // WHEN
+        var keys = new ArrayList<String>();
+        var batchEnds = new ArrayList<Boolean>();
+        var drained = fast.drain((event, endOfBatch) -> {
+            keys.add(event.getKey());
+            batchEnds.add(endOfBatch);
+        }, 100);
+        var partial = slow.drain((event, endOfBatch) -> { }, 2);
+
+        // THEN
+        assertEquals(5, drained);
+        assertEquals("isbn-0", keys.get(0));
+        assertEquals("isbn-4", keys.get(4));
+        assertTrue(batchEnds.get(4));
+        assertFalse(batchEnds.get(3));
+        assertEquals(2, partial);
+        assertEquals(0, fast.getLag());
+        assertEquals(3, slow.getLag());
+    }
+
+    @Test
+    void testDropPolicyDiscardsWhenSlowestSubscriberIsFull() {
+        // GIVEN
+        var stream = new ChangeStream(4, BackpressurePolicy.DROP);
+        var subscription = stream.subscribe();
+
+        // WHEN
+        for (int i = 0; i < 6; i++) {
+            stream.publish(EntityType.USER, ChangeType.ADDED, "user-" + i, null, Long.MIN_VALUE);
+        }
+
+        // THEN
+        assertEquals(2, stream.getDropped());
+        assertEquals(4, subscription.drain((event, endOfBatch) -> { }, 100));
+        assertTrue(stream.publish(EntityType.USER, ChangeType.ADDED, "user-6", null, Long.MIN_VALUE));
+    }
+
+    @Test
+    void testBlockPolicyWaitsForSubscriber() throws Exception {
+        // GIVEN
+        var stream = new ChangeStream(4, BackpressurePolicy.BLOCK);
+        var subscription = stream.subscribe();
+        for (int i = 0; i < 4; i++) {
+            stream.publish(EntityType.BOOK, ChangeType.ADDED, "isbn-" + i, null, Long.MIN_VALUE);
+        }
+
+        // WHEN
+        var blocked = CompletableFuture.runAsync(
+                () -> stream.publish(EntityType.BOOK, ChangeType.ADDED, "isbn-4", null, Long.MIN_VALUE));
+        Thread.sleep(50);
+        assertFalse(blocked.isDone());
+        subscription.drain((event, endOfBatch) -> { }, 1);
+
+        // THEN
+        blocked.get(5, TimeUnit.SECONDS);
+        var keys = new ArrayList<String>();
+        subscription.drain((event, endOfBatch) -> keys.add(event.getKey()), 100);
+        assertEquals("isbn-4", keys.get(keys.size() - 1));
+        assertEquals(0, stream.getDropped());
+    }
+
+    @Test
+    void testServicesPublishMutations() throws NotFoundException {
+        // GIVEN
+        var stream = new ChangeStream();
+        var subscription = stream.subscribe();
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        bookService.setChangeStream(stream);
+        userService.setChangeStream(stream);
+        loanService.setChangeStream(stream);
+        var day = LocalDate.of(2024, 5, 1);
+
+        // WHEN
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        loanService.addLoan("1", "123", day);
+        loanService.returnBook("1", "123", day.plusDays(3));
+
+        // THEN
+        var events = new ArrayList<String>();
+        subscription.drain((event, endOfBatch) -> events.add(event.getEntity() + " " + event.getType() + " "
+                + event.getKey() + " " + event.getUserId() + " " + event.getEpochDay()), 100);
+        assertEquals(4, events.size());
+        assertEquals("BOOK ADDED 123 null " + Long.MIN_VALUE, events.get(0));
+        assertEquals("USER ADDED 1 null " + Long.MIN_VALUE, events.get(1));
+        assertEquals("LOAN ADDED 123 1 " + day.toEpochDay(), events.get(2));
+        assertEquals("LOAN UPDATED 123 1 " + day.plusDays(3).toEpochDay(), events.get(3));
+    }
+}
@@ -0,0 +1,143 @@
+package com.devsenior.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.service.BookService;
+
+public class LibraryMetricsTest {
+
+    private LibraryMetrics metrics;
+    private BookService bookService;
+
+    @BeforeEach
+    void setup() {
+        metrics = new LibraryMetrics(true);
+        bookService = new BookService();
+        bookService.setMetrics(metrics);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+    }
+
+    @DisplayName("Cuenta llamadas y libros no encontrados")
+    @Test
+    void testCountsCallsAndMisses() throws NotFoundException {
+        // WHEN
+        bookService.getBookByIsbn("1234567890");
+        bookService.getBookByIsbn("1234567890");
+        assertThrows(NotFoundException.class, () -> bookService.getBookByIsbn("0000000000"));
+
+        // THEN
+        var snapshot = metrics.snapshot(Operation.GET_BOOK_BY_ISBN);
+        assertEquals(3, snapshot.getCalls());
+        assertEquals(1, snapshot.getMisses());
+        assertEquals(0, snapshot.getErrors());
+        assertTrue(snapshot.getP50Nanos() <= snapshot.getP999Nanos());
+        assertTrue(snapshot.getP999Nanos() <= snapshot.getMaxNanos());
+    }
+
+    @DisplayName("Deshabilitado no registra nada")
+    @Test
+    void testDisabledRecordsNothing() throws NotFoundException {
+        // GIVEN
+        metrics.setEnabled(false);
+
+        // WHEN
+        bookService.getBookByIsbn("1234567890");
+
+        // THEN
+        assertEquals(0, metrics.snapshot(Operation.GET_BOOK_BY_ISBN).getCalls());
+    }
+
+    @DisplayName("Los percentiles del histograma tienen error acotado")
+    @Test
+    void testHistogramPercentiles() {
+        // GIVEN
+        var histogram = new LatencyHistogram();
+
+        // WHEN
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        // THEN
+        var p50 = histogram.percentile(0.50);
+        var p99 = histogram.percentile(0.99);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 1.125, "p50 = " + p50);
+        assertTrue(p99 >= 99_000 && p99 <= 99_000 * 1.125, "p99 = " + p99);
+    }
+
+    @DisplayName("La instancia compartida viene deshabilitada")
+    @Test
+    void testSharedInstanceIsDisabledByDefault() {
+        // WHEN
+        var shared = LibraryMetrics.getInstance();
+
+        // THEN
+        assertFalse(shared.isEnabled());
+        assertEquals(0, shared.start());
+    }
+
+    @DisplayName("El histograma no pierde muestras con varios hilos")
+    @Test
+    void testHistogramCountsFromManyThreads() throws InterruptedException {
+        // GIVEN
+        var histogram = new LatencyHistogram();
+        var threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(1_000);
+                }
+            });
+        }
+
+        // WHEN
+        for (var thread : threads) {
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        assertEquals(200_000, LatencyHistogram.total(histogram.counts()));
+        histogram.reset();
+        assertEquals(0, LatencyHistogram.total(histogram.counts()));
+    }
+
+    @DisplayName("Las metricas se pueden leer por JMX")
+    @Test
+    void testReadableOverJmx() throws Exception {
+        // GIVEN
+        var name = LibraryMetrics.OBJECT_NAME + ",name=test";
+        metrics.registerMBean(name);
+        bookService.getBookByIsbn("1234567890");
+
+        // WHEN
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var operations = (CompositeData[]) server.getAttribute(new ObjectName(name), "Operations");
+
+        // THEN
+        var found = false;
+        for (var operation : operations) {
+            if (Operation.GET_BOOK_BY_ISBN.name().equals(operation.get("operation"))) {
+                assertEquals(1L, operation.get("calls"));
+                found = true;
+            }
+        }
+        assertTrue(found);
+        server.unregisterMBean(new ObjectName(name));
+    }
+}
@@ -0,0 +1,318 @@
+package com.devsenior.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Hold;
+import com.devsenior.model.LoanState;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+public class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService loanService;
+
+    @BeforeEach
+    void setup() {
+        newServices();
+    }
+
+    @DisplayName("Recuperar el estado repitiendo la bitacora")
+    @Test
+    void testRecoverFromJournal() throws IOException, NotFoundException {
+        // GIVEN
+        try (var journal = Journal.open(dir, 100, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            bookService.addBook("456", "Programacion", "Anderson Mesa");
+            bookService.deleteBook("456");
+            userService.addUser("1", "Anderson Mesa", "anderson@email.com", LocalDate.of(2024, 1, 15));
+            userService.updateUserEmail("1", "anderson.mesa@email.com");
+            loanService.addLoan("1", "123", LocalDate.of(2024, 2, 1));
+        }
+
+        // WHEN
+        newServices();
+        Journal.open(dir, 100, bookService, userService, loanService).close();
+
+        // THEN
+        assertEquals(1, bookService.getAllBooks().size());
+        assertEquals("anderson.mesa@email.com", userService.getUserById("1").getEmail());
+        assertEquals(LocalDate.of(2024, 1, 15), userService.getUserById("1").getRegisterDate());
+        var loan = loanService.getLoansByUserId("1").get(0);
+        assertEquals(LoanState.STARTED, loan.getState());
+        assertEquals(LocalDate.of(2024, 2, 1), loan.getLoanDate());
+        assertThrows(NotFoundException.class, () -> loanService.addLoan("1", "123"));
+    }
+
+    @DisplayName("Recuperar desde el snapshot y la cola de la bitacora")
+    @Test
+    void testRecoverFromSnapshotAndTail() throws IOException, NotFoundException {
+        // GIVEN
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+            loanService.addLoan("1", "123");
+            journal.snapshot(bookService, userService, loanService);
+
+            loanService.returnBook("1", "123");
+            userService.deleteUser("1");
+        }
+
+        // WHEN
+        newServices();
+        Journal.open(dir, 1, bookService, userService, loanService).close();
+
+        // THEN
+        assertEquals(0, userService.getAllUsers().size());
+        assertEquals(1, loanService.getLoans().size());
+        assertEquals(LoanState.FINISHED, loanService.getLoans().get(0).getState());
+        assertEquals("Anderson Mesa", loanService.getLoans().get(0).getUser().getName());
+    }
+
+    @DisplayName("Repetir la bitacora presta el libro devuelto al mismo usuario de la cola")
+    @Test
+    void testHoldsAndPromotionAreReplayed() throws IOException, NotFoundException {
+        // GIVEN
+        var date = LocalDate.of(2024, 1, 1);
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            for (var id : List.of("1", "2", "3", "4")) {
+                userService.addUser(id, "Usuario " + id, id + "@email.com");
+            }
+            loanService.addLoan("1", "123", date);
+            loanService.addLoanOrHold("2", "123", date);
+            loanService.addLoanOrHold("3", "123", date);
+            loanService.addLoanOrHold("4", "123", date);
+            loanService.cancelHold("2", "123");
+            loanService.setLoanPeriod(Period.ofDays(7));
+            loanService.returnBook("1", "123", date.plusDays(3));
+        }
+
+        // WHEN
+        newServices();
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+
+            // THEN
+            assertEquals(0, journal.getSkippedRecords());
+        }
+        var loan = loanService.findActiveLoan("123").orElseThrow();
+        assertEquals("3", loan.getUser().getId());
+        assertEquals(date.plusDays(10), loan.getDueDate());
+        assertEquals(List.of("4"), loanService.getHolds("123").stream().map(Hold::getUserId).toList());
+    }
+
+    @DisplayName("Repetir el vencimiento de reservas libro por libro")
+    @Test
+    void testExpiredHoldsAreReplayed() throws IOException, NotFoundException {
+        // GIVEN
+        var date = LocalDate.of(2024, 1, 1);
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            for (var isbn : List.of("111", "222")) {
+                bookService.addBook(isbn, "Libro " + isbn, "Autor");
+            }
+            for (var id : List.of("1", "2", "3")) {
+                userService.addUser(id, "Usuario " + id, id + "@email.com");
+            }
+            loanService.setHoldPeriod(Period.ofDays(5));
+            loanService.addLoan("1", "111", date);
+            loanService.addLoan("1", "222", date);
+            loanService.addLoanOrHold("2", "111", date);
+            loanService.addLoanOrHold("3", "222", date.plusDays(10));
+            assertEquals(1, loanService.expireHolds(date.plusDays(10)).size());
+            // Una reserva nueva en un dia ya vencido se vence en la siguiente pasada
+            loanService.addLoanOrHold("2", "222", date);
+            assertEquals(1, loanService.expireHolds(date.plusDays(10)).size());
+        }
+
+        // WHEN
+        newServices();
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+
+            // THEN
+            assertEquals(0, journal.getSkippedRecords());
+        }
+        assertTrue(loanService.getHolds("111").isEmpty());
+        assertEquals(List.of("3"), loanService.getHolds("222").stream().map(Hold::getUserId).toList());
+    }
+
+    @DisplayName("Descartar un registro incompleto al final de la bitacora")
+    @Test
+    void testTruncatedTailIsDiscarded() throws IOException, NotFoundException {
+        // GIVEN
+        long validEnd;
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            validEnd = journal.getPosition();
+            bookService.addBook("456", "Programacion", "Anderson Mesa");
+        }
+        try (var channel = FileChannel.open(dir.resolve(Journal.JOURNAL_FILE), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // WHEN
+        newServices();
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            assertEquals(validEnd, journal.getPosition());
+            bookService.addBook("789", "Estructuras de datos", "Cesar Diaz");
+        }
+
+        // THEN
+        newServices();
+        Journal.open(dir, 1, bookService, userService, loanService).close();
+        assertEquals(2, bookService.getAllBooks().size());
+        assertThrows(NotFoundException.class, () -> bookService.getBookByIsbn("456"));
+        assertEquals("Estructuras de datos", bookService.getBookByIsbn("789").getTitle());
+    }
+
+    @DisplayName("Cada registro llega al archivo al agregarlo, sin esperar al sync")
+    @Test
+    void testRecordsAreWrittenBeforeSync() throws IOException, NotFoundException {
+        // GIVEN
+        try (var journal = Journal.open(dir, 1_000, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+
+            // WHEN
+            var written = Files.size(dir.resolve(Journal.JOURNAL_FILE));
+
+            // THEN
+            assertEquals(journal.getPosition(), written);
+        }
+    }
+
+    @DisplayName("Contar los registros que no se pudieron aplicar al recuperar")
+    @Test
+    void testSkippedRecordsAreCounted() throws IOException {
+        // GIVEN
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            journal.append(JournalRecordType.RETURN_BOOK, LocalDate.of(2024, 1, 1), "1", "123");
+            journal.append(JournalRecordType.ADD_BOOK, null, "123", "Aprendiendo Java", "Cesar Diaz");
+        }
+
+        // WHEN
+        newServices();
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+
+            // THEN
+            assertEquals(2, journal.getSkippedRecords());
+            assertEquals(1, bookService.getAllBooks().size());
+        }
+    }
+
+    @DisplayName("Detener la recuperacion en un registro con checksum invalido")
+    @Test
+    void testCorruptedRecordStopsReplay() throws IOException {
+        // GIVEN
+        long firstEnd;
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            firstEnd = journal.getPosition();
+            bookService.addBook("456", "Programacion", "Anderson Mesa");
+        }
+        try (var channel = FileChannel.open(dir.resolve(Journal.JOURNAL_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), firstEnd + 12);
+        }
+
+        // WHEN
+        newServices();
+        Journal.open(dir, 1, bookService, userService, loanService).close();
+
+        // THEN
+        assertEquals(1, bookService.getAllBooks().size());
+    }
+
+    @DisplayName("Fallar al abrir si hay un registro corrupto en medio de la bitacora")
+    @Test
+    void testCorruptedRecordInTheMiddleFails() throws IOException {
+        // GIVEN
+        long firstEnd;
+        try (var journal = Journal.open(dir, 1, bookService, userService, loanService)) {
+            bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            firstEnd = journal.getPosition();
+            bookService.addBook("456", "Programacion", "Anderson Mesa");
+            bookService.addBook("789", "Estructuras de datos", "Cesar Diaz");
+        }
+        try (var channel = FileChannel.open(dir.resolve(Journal.JOURNAL_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), firstEnd + 12);
+        }
+        var size = Files.size(dir.resolve(Journal.JOURNAL_FILE));
+
+        // WHEN
+        newServices();
+
+        // THEN
+        assertThrows(IOException.class, () -> Journal.open(dir, 1, bookService, userService, loanService));
+        assertEquals(size, Files.size(dir.resolve(Journal.JOURNAL_FILE)));
+    }
+
+    @DisplayName("Tomar un snapshot mientras se prestan y devuelven libros")
+    @Test
+    void testSnapshotWhileLending() throws Exception {
+        // GIVEN
+        var journal = Journal.open(dir, 1_000, bookService, userService, loanService);
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        for (int i = 0; i < 16; i++) {
+            bookService.addBook("isbn-" + i, "Libro " + i, "Autor");
+        }
+        var running = new AtomicBoolean(true);
+        var writer = new Thread(() -> {
+            var date = LocalDate.of(2024, 1, 1);
+            for (int n = 0; running.get(); n++) {
+                var isbn = "isbn-" + (n % 16);
+                try {
+                    loanService.addLoan("1", isbn, date);
+                    loanService.returnBook("1", isbn, date);
+                } catch (NotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        writer.start();
+
+        // WHEN
+        for (int i = 0; i < 20; i++) {
+            journal.snapshot(bookService, userService, loanService);
+        }
+        running.set(false);
+        writer.join();
+        var loans = loanService.getLoans().size();
+        journal.close();
+
+        // THEN
+        newServices();
+        Journal.open(dir, 1, bookService, userService, loanService).close();
+        assertEquals(loans, loanService.getLoans().size());
+        assertEquals(16, bookService.getAllBooks().size());
+    }
+
+    private void newServices() {
+        bookService = new BookService();
+        userService = new UserService();
+        loanService = new LoanService(bookService, userService);
+    }
+}
@@ -0,0 +1,220 @@
+package com.devsenior.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.LoanState;
+import com.devsenior.pagination.BookSort;
+import com.devsenior.pagination.UserSort;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+public class SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService loanService;
+
+    @BeforeEach
+    void setup() {
+        newServices();
+    }
+
+    @DisplayName("Guardar y cargar el estado completo, con libros y usuarios borrados en prestamos")
+    @Test
+    void testWriteAndLoad() throws IOException, NotFoundException {
+        // GIVEN
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        bookService.addBook("456", "Programación", "Cesar Diaz");
+        bookService.addBook("789", "Estructuras de datos", "Andrés Núñez");
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com", LocalDate.of(2024, 1, 15));
+        userService.addUser("2", "Ana Ruiz", "ana@email.com", LocalDate.of(2024, 3, 2));
+        loanService.addLoan("1", "123", LocalDate.of(2024, 2, 1));
+        loanService.addLoan("2", "456", LocalDate.of(2024, 3, 5));
+        loanService.returnBook("2", "456");
+        userService.deleteUser("2");
+        bookService.deleteBook("456");
+        var file = dir.resolve(Snapshot.SNAPSHOT_FILE);
+        Snapshot.write(file, 42, bookService, userService, loanService);
+
+        // WHEN
+        newServices();
+        var position = Snapshot.load(file, bookService, userService, loanService);
+
+        // THEN
+        assertEquals(42, position);
+        assertEquals(2, bookService.getAllBooks().size());
+        assertEquals(1, userService.getAllUsers().size());
+        assertEquals("anderson@email.com", userService.getUserByEmail("ANDERSON@email.com").getEmail());
+        assertEquals(LocalDate.of(2024, 1, 15), userService.getUserById("1").getRegisterDate());
+        assertEquals("Andrés Núñez", bookService.getBookByIsbn("789").getAuthor());
+        assertEquals("789", bookService.searchBooks("nunez", 10).get(0).getIsbn());
+        assertEquals("123", bookService.searchBooks("java diaz", 10).get(0).getIsbn());
+        assertEquals("789", bookService.getBooksPage(BookSort.TITLE, null, 10).getItems().get(1).getIsbn());
+        assertEquals("1", userService.getUsersPage(UserSort.NAME, null, 10).getItems().get(0).getId());
+
+        var active = loanService.getLoansByUserId("1").get(0);
+        assertEquals(LoanState.STARTED, active.getState());
+        assertEquals(LocalDate.of(2024, 2, 1), active.getLoanDate());
+        assertEquals(LocalDate.of(2024, 2, 15), active.getDueDate());
+        assertNull(active.getReturnDate());
+        assertSame(bookService.getBookByIsbn("123"), active.getBook());
+        assertThrows(NotFoundException.class, () -> loanService.addLoan("1", "123"));
+
+        var finished = loanService.getLoansByUserId("2").get(0);
+        assertEquals(LoanState.FINISHED, finished.getState());
+        assertEquals("Ana Ruiz", finished.getUser().getName());
+        assertEquals("Programación", finished.getBook().getTitle());
+        assertTrue(finished.getReturnDate() != null);
+    }
+
+    @DisplayName("Las colas de reservas se guardan en el snapshot en su orden")
+    @Test
+    void testHoldsAreSaved() throws IOException, NotFoundException {
+        // GIVEN
+        var date = LocalDate.of(2024, 1, 1);
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        for (var id : List.of("1", "2", "3")) {
+            userService.addUser(id, "Usuario " + id, id + "@email.com");
+        }
+        loanService.addLoan("1", "123", date);
+        loanService.addLoanOrHold("3", "123", date);
+        loanService.addLoanOrHold("2", "123", date.plusDays(1));
+        var file = dir.resolve(Snapshot.SNAPSHOT_FILE);
+        Snapshot.write(file, 0, bookService, userService, loanService);
+
+        // WHEN
+        newServices();
+        Snapshot.load(file, bookService, userService, loanService);
+        loanService.returnBook("1", "123", date.plusDays(5));
+
+        // THEN
+        assertEquals("3", loanService.findActiveLoan("123").orElseThrow().getUser().getId());
+        var waiting = loanService.getHolds("123");
+        assertEquals(1, waiting.size());
+        assertEquals("2", waiting.get(0).getUserId());
+        assertEquals(date.plusDays(1), waiting.get(0).getPlacedDate());
+        assertEquals(date.plusDays(31), waiting.get(0).getExpiryDate());
+    }
+
+    @DisplayName("Rechazar un snapshot con una seccion dañada")
+    @Test
+    void testCorruptedSectionIsRejected() throws IOException {
+        // GIVEN
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        var file = dir.resolve(Snapshot.SNAPSHOT_FILE);
+        Snapshot.write(file, 0, bookService, userService, loanService);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), channel.size() - 6);
+        }
+
+        // WHEN - THEN
+        newServices();
+        var error = assertThrows(IOException.class, () -> Snapshot.load(file, bookService, userService, loanService));
+        assertTrue(error.getMessage().contains("dañada"));
+        assertEquals(0, bookService.getAllBooks().size());
+    }
+
+    @DisplayName("Cargar un snapshot de la version 4, sin seccion de reservas")
+    @Test
+    void testLoadVersion4() throws IOException, NotFoundException {
+        // GIVEN - un snapshot actual al que se le quita la seccion de reservas de la cabecera
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        loanService.addLoan("1", "123", LocalDate.of(2024, 2, 1));
+        var file = dir.resolve(Snapshot.SNAPSHOT_FILE);
+        Snapshot.write(file, 7, bookService, userService, loanService);
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        var header = ByteBuffer.allocate(20 + 4 * 16 + 4);
+        header.putInt(bytes.getInt(0)).putInt(4).putLong(bytes.getLong(8)).putInt(4);
+        header.put(bytes.slice(20, 4 * 16));
+        var crc = new CRC32C();
+        crc.update(header.duplicate().flip());
+        header.putInt((int) crc.getValue());
+        bytes.put(0, header.array());
+        Files.write(file, bytes.array());
+
+        // WHEN
+        newServices();
+        var position = Snapshot.load(file, bookService, userService, loanService);
+
+        // THEN
+        assertEquals(7, position);
+        assertEquals("Aprendiendo Java", bookService.getBookByIsbn("123").getTitle());
+        assertEquals(LocalDate.of(2024, 2, 15), loanService.findActiveLoan("123").orElseThrow().getDueDate());
+        assertTrue(loanService.getHolds("123").isEmpty());
+    }
+
+    @DisplayName("Cargar un snapshot de la version 3, escrito como un flujo de datos")
+    @Test
+    void testLoadVersion3() throws IOException, NotFoundException {
+        // GIVEN
+        var file = dir.resolve(Snapshot.SNAPSHOT_FILE);
+        try (var out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x4C534E50);
+            out.writeInt(3);
+            out.writeLong(9);
+            out.writeInt(1);
+            writeStrings(out, "123", "Aprendiendo Java", "Cesar Diaz");
+            out.writeInt(1);
+            writeStrings(out, "1", "Anderson Mesa", "anderson@email.com");
+            out.writeLong(LocalDate.of(2024, 1, 15).toEpochDay());
+            out.writeInt(1);
+            writeStrings(out, "1", "Anderson Mesa", "anderson@email.com");
+            out.writeLong(LocalDate.of(2024, 1, 15).toEpochDay());
+            writeStrings(out, "123", "Aprendiendo Java", "Cesar Diaz");
+            out.writeLong(LocalDate.of(2024, 2, 1).toEpochDay());
+            out.writeByte(LoanState.STARTED.ordinal());
+            out.writeLong(Long.MIN_VALUE);
+            out.writeLong(LocalDate.of(2024, 2, 15).toEpochDay());
+        }
+
+        // WHEN
+        var position = Snapshot.load(file, bookService, userService, loanService);
+
+        // THEN
+        assertEquals(9, position);
+        assertEquals(LocalDate.of(2024, 1, 15), userService.getUserById("1").getRegisterDate());
+        var loan = loanService.findActiveLoan("123").orElseThrow();
+        assertEquals("1", loan.getUser().getId());
+        assertEquals(LocalDate.of(2024, 2, 15), loan.getDueDate());
+        assertNull(loan.getReturnDate());
+    }
+
+    private static void writeStrings(DataOutputStream out, String... values) throws IOException {
+        for (var value : values) {
+            out.writeBoolean(true);
+            out.writeUTF(value);
+        }
+    }
+
+    private void newServices() {
+        bookService = new BookService();
+        userService = new UserService();
+        loanService = new LoanService(bookService, userService);
+    }
+}
@@ -0,0 +1,147 @@
+package com.devsenior.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.model.Isbn;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+public class CompactBookRepositoryTest {
+
+    private CompactBookRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new CompactBookRepository();
+    }
+
+    @Test
+    void testParseIsbn() {
+        assertEquals(9780306406157L, Isbn.parse("978-0-306-40615-7"));
+        assertEquals(9780306406157L, Isbn.parse("0-306-40615-2"));
+        assertEquals(9780804429573L, Isbn.parse("080442957X"));
+        assertEquals(-1, Isbn.tryParse("978-0-306-40615-8"));
+        assertEquals(-1, Isbn.tryParse("123"));
+        assertThrows(IllegalArgumentException.class, () -> Isbn.parse("Aprendiendo Java"));
+    }
+
+    @Test
+    void testAddAndGetWithIsbn10Or13() {
+        // GIVEN
+        repository.add(new Book("0-306-40615-2", "Aprendiendo Java", "Cesar Diaz"));
+
+        // WHEN
+        var book = repository.get("9780306406157");
+
+        // THEN
+        assertNotNull(book);
+        assertEquals("9780306406157", book.getIsbn());
+        assertEquals("Aprendiendo Java", book.getTitle());
+        assertNull(repository.add(new Book("978-0-306-40615-7", "Repetido", "Otro")));
+        assertNull(repository.get("no es un isbn"));
+        assertThrows(IllegalArgumentException.class, () -> repository.add(new Book("123", "Invalido", "Otro")));
+    }
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        // GIVEN
+        var random = new Random(7);
+        var expected = new HashMap<String, String>();
+        var isbns = isbns(5_000);
+
+        // WHEN
+        for (int i = 0; i < 50_000; i++) {
+            var isbn = isbns.get(random.nextInt(isbns.size()));
+            if (random.nextBoolean()) {
+                var added = repository.add(new Book(isbn, "Libro " + i, "Autor")) != null;
+                assertEquals(!expected.containsKey(isbn), added);
+                expected.putIfAbsent(isbn, "Libro " + i);
+            } else {
+                var removed = repository.remove(isbn);
+                var title = expected.remove(isbn);
+                assertEquals(title, removed == null ? null : removed.getTitle());
+            }
+        }
+
+        // THEN
+        assertEquals(expected.size(), repository.size());
+        assertEquals(expected.size(), repository.findAll().size());
+        for (var isbn : isbns) {
+            var book = repository.get(isbn);
+            assertEquals(expected.get(isbn), book == null ? null : book.getTitle());
+        }
+    }
+
+    @Test
+    void testAddAllSkipsRepeatedIsbn() {
+        // GIVEN
+        var books = List.of(
+                new Book("0-306-40615-2", "Aprendiendo Java", "Cesar Diaz"),
+                new Book("9780306406157", "Repetido", "Otro"),
+                new Book("080442957X", "Programacion", "Anderson Mesa"));
+
+        // WHEN
+        var added = repository.addAll(books);
+
+        // THEN
+        assertEquals(2, added.size());
+        assertEquals(2, repository.size());
+        assertTrue(repository.contains("978-0-8044-2957-3"));
+    }
+
+    private static List<String> isbns(int count) {
+        var isbns = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            var body = "978" + String.format("%09d", i * 37L);
+            var sum = 0;
+            for (int d = 0; d < body.length(); d++) {
+                sum += (body.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+            }
+            isbns.add(body + (10 - sum % 10) % 10);
+        }
+        return isbns;
+    }
+
+    @Test
+    void testLoansAndImportUseCanonicalIsbn() throws Exception {
+        // GIVEN
+        var bookService = new BookService(repository);
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        userService.addUser("u1", "Ana", "ana@email.com");
+        userService.addUser("u2", "Luis", "luis@email.com");
+        bookService.addBook("0306406152", "Aprendiendo Java", "Cesar Diaz");
+
+        // WHEN
+        loanService.addLoan("u1", "0306406152");
+
+        // THEN
+        assertThrows(NotFoundException.class, () -> loanService.addLoan("u2", "978-0-306-40615-7"));
+        assertFalse(loanService.isAvailable("9780306406157"));
+        loanService.returnBook("u1", "9780306406157");
+        assertTrue(loanService.isAvailable("0306406152"));
+
+        var csv = "isbn,title,author\n080442957X,Libro,Autor\n9780804429573,Repetido,Autor\n";
+        var result = bookService.importBooks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ',');
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getDuplicates());
+    }
+}
@@ -0,0 +1,116 @@
+package com.devsenior.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+
+public class FileBookRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAddGetAndRemove() throws IOException {
+        // GIVEN
+        try (var repository = FileBookRepository.open(dir.resolve("catalogo.dat"))) {
+            repository.add(new Book("123", "Aprendiendo Java", "Cesar Diaz"));
+            repository.add(new Book("456", "Programación en español", "Andrés Núñez"));
+
+            // WHEN - THEN
+            assertNull(repository.add(new Book("123", "Repetido", "Otro")));
+            assertEquals("Andrés Núñez", repository.get("456").getAuthor());
+            assertEquals("123", repository.remove("123").getIsbn());
+            assertNull(repository.get("123"));
+            assertFalse(repository.contains("123"));
+            assertEquals(1, repository.size());
+            assertEquals(1, repository.findAll().size());
+        }
+    }
+
+    @Test
+    void testReopenRebuildsIndex() throws IOException {
+        // GIVEN
+        var file = dir.resolve("catalogo.dat");
+        var books = new ArrayList<Book>();
+        for (int i = 0; i < 5_000; i++) {
+            books.add(new Book("isbn-" + i, "Titulo " + i, "Autor " + i));
+        }
+        try (var repository = FileBookRepository.open(file)) {
+            repository.addAll(books);
+            for (int i = 0; i < 5_000; i += 2) {
+                repository.remove("isbn-" + i);
+            }
+        }
+
+        // WHEN
+        try (var repository = FileBookRepository.open(file)) {
+            // THEN
+            assertEquals(2_500, repository.size());
+            assertNull(repository.get("isbn-10"));
+            assertEquals("Titulo 4999", repository.get("isbn-4999").getTitle());
+        }
+    }
+
+    @Test
+    void testIncompleteLastRecordIsDiscarded() throws IOException {
+        // GIVEN
+        var file = dir.resolve("catalogo.dat");
+        long complete;
+        try (var repository = FileBookRepository.open(file)) {
+            repository.add(new Book("123", "Aprendiendo Java", "Cesar Diaz"));
+            complete = repository.getFileBytes();
+            repository.add(new Book("456", "Otro libro", "Otro autor"));
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(complete + 5);
+        }
+
+        // WHEN
+        try (var repository = FileBookRepository.open(file)) {
+            // THEN
+            assertEquals(1, repository.size());
+            assertEquals(complete, repository.getFileBytes());
+            repository.add(new Book("789", "Nuevo", "Autor"));
+            assertEquals("Nuevo", repository.get("789").getTitle());
+        }
+    }
+
+    @Test
+    void testBookServiceOverCachedFileCatalog() throws IOException, NotFoundException {
+        // GIVEN
+        try (var file = FileBookRepository.open(dir.resolve("catalogo.dat"))) {
+            var repository = new CachingBookRepository(file, 100);
+            var service = new BookService(repository, false);
+            service.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+            service.addBook("456", "Programación", "Ana");
+
+            // WHEN
+            for (int i = 0; i < 10; i++) {
+                service.getBookByIsbn("123");
+            }
+            assertFalse(repository.contains("999"));
+            assertFalse(repository.contains("999"));
+            service.addBook("999", "Recien llegado", "Autor");
+
+            // THEN
+            assertTrue(repository.contains("999"));
+            var stats = repository.getCacheStats();
+            assertTrue(stats.getHits() >= 9);
+            assertEquals(1, stats.getNegativeHits());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.devsenior.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.model.Book;
+import com.devsenior.model.Loan;
+import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+
+public class LoanHistoryTest {
+
+    private final LoanHistory history = new LoanHistory();
+
+    @DisplayName("Guardar prestamos terminados y consultarlos por usuario en orden")
+    @Test
+    void testAddAndFindByUserId() {
+        // GIVEN
+        var user = new User("1", "Cesar Diaz", "cesar@email.com");
+        var day = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 3000; i++) {
+            history.add(loan(user, "978-" + i, day.plusDays(i)));
+        }
+        history.add(loan(new User("2", "Ana", "ana@email.com"), "978-0", day));
+
+        // WHEN
+        var loans = history.findByUserId("1");
+
+        // THEN
+        assertEquals(3000, loans.size());
+        assertEquals("978-2999", loans.get(2999).getBook().getIsbn());
+        assertEquals(day.plusDays(2999), loans.get(2999).getLoanDate());
+        assertEquals(LoanState.FINISHED, loans.get(0).getState());
+        assertEquals(3001, history.size());
+        assertEquals(3001, history.findAll().size());
+        assertTrue(history.findByUserId("3").isEmpty());
+    }
+
+    @DisplayName("Leer el historial mientras otros hilos agregan prestamos")
+    @Test
+    void testReadWhileAdding() throws InterruptedException {
+        // GIVEN
+        var day = LocalDate.of(2024, 1, 1);
+        var writers = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            var user = new User("u" + t, "Usuario", "usuario@email.com");
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    history.add(loan(user, "978-" + i, day));
+                }
+            }));
+        }
+        var done = new AtomicBoolean();
+        var failed = new AtomicBoolean();
+        var reader = new Thread(() -> {
+            while (!done.get()) {
+                for (var loan : history.findAll()) {
+                    if (loan.getUser() == null || loan.getBook() == null) {
+                        failed.set(true);
+                    }
+                }
+            }
+        });
+
+        // WHEN
+        reader.start();
+        writers.forEach(Thread::start);
+        for (var writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        // THEN
+        assertFalse(failed.get());
+        assertEquals(20000, history.size());
+        assertEquals(5000, history.findByUserId("u3").size());
+    }
+
+    private static Loan loan(User user, String isbn, LocalDate day) {
+        return new Loan(user, new Book(isbn, "Titulo", "Autor"), day, day.plusDays(14), LoanState.FINISHED, day.plusDays(7));
+    }
+}
@@ -0,0 +1,121 @@
+package com.devsenior.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.service.BookService;
+
+public class OffHeapBookRepositoryTest {
+
+    private OffHeapBookRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new OffHeapBookRepository();
+    }
+
+    @Test
+    void testAddGetAndRemove() {
+        // GIVEN
+        repository.add(new Book("123", "Aprendiendo Java", "Cesar Diaz"));
+        repository.add(new Book("456", "Programación en español", "Andrés Núñez"));
+
+        // WHEN - THEN
+        assertNull(repository.add(new Book("123", "Repetido", "Otro")));
+        var book = repository.get("456");
+        assertEquals("Programación en español", book.getTitle());
+        assertEquals("Andrés Núñez", book.getAuthor());
+        assertEquals("123", repository.remove("123").getIsbn());
+        assertNull(repository.get("123"));
+        assertEquals(1, repository.size());
+        assertEquals(1, repository.findAll().size());
+        assertTrue(repository.getOffHeapBytes() > 0);
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        // GIVEN
+        var random = new Random(7);
+        var expected = new HashMap<String, Book>();
+
+        // WHEN
+        for (int i = 0; i < 50_000; i++) {
+            var isbn = "isbn-" + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(isbn) != null, repository.remove(isbn) != null);
+            } else {
+                var book = new Book(isbn, "Libro " + i, "Autor " + i % 100);
+                assertEquals(expected.putIfAbsent(isbn, book) == null, repository.add(book) != null);
+            }
+        }
+
+        // THEN
+        assertEquals(expected.size(), repository.size());
+        for (var book : expected.values()) {
+            assertEquals(book.getTitle(), repository.get(book.getIsbn()).getTitle());
+        }
+    }
+
+    @Test
+    void testAddAllSkipsDuplicates() {
+        // GIVEN
+        var books = new ArrayList<Book>();
+        for (int i = 0; i < 1_000; i++) {
+            books.add(new Book("isbn-" + i, "Libro " + i, "Autor"));
+        }
+        books.add(new Book("isbn-0", "Repetido", "Autor"));
+
+        // WHEN
+        var added = repository.addAll(books);
+
+        // THEN
+        assertEquals(1_000, added.size());
+        assertEquals("Libro 0", repository.get("isbn-0").getTitle());
+    }
+
+    @Test
+    void testBookServiceWithoutSecondaryIndexes() throws NotFoundException {
+        // GIVEN
+        var service = new BookService(repository, false);
+
+        // WHEN
+        service.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        service.deleteBook("123");
+        service.addBook("456", "Programacion", "Anderson Mesa");
+
+        // THEN
+        assertEquals("Programacion", service.getBookByIsbn("456").getTitle());
+        assertEquals(List.of("456"), service.getAllBooks().stream().map(Book::getIsbn).toList());
+        assertThrows(IllegalStateException.class, () -> service.searchBooks("java", 10));
+    }
+
+    @Test
+    void testRecordEndingOnChunkBoundary() {
+        // GIVEN - 4096 registros de 16 KiB llenan exactamente un bloque de 64 MiB
+        // (6 bytes de cabecera + isbn de 10 + titulo de 16368)
+        var title = "x".repeat(16_368);
+        for (int i = 0; i < 4_096; i++) {
+            repository.add(new Book(String.format("isbn-%05d", i), title, ""));
+        }
+
+        // WHEN
+        repository.add(new Book("siguiente", "Aprendiendo Java", "Cesar Diaz"));
+
+        // THEN
+        assertEquals(title, repository.get("isbn-00000").getTitle());
+        assertEquals("Aprendiendo Java", repository.get("siguiente").getTitle());
+        assertEquals(4_097, repository.size());
+    }
+}
@@ -0,0 +1,43 @@
+package com.devsenior.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.model.Book;
+import com.devsenior.model.Loan;
+import com.devsenior.model.LoanState;
+import com.devsenior.model.User;
+
+public class OverdueSchedulerTest {
+
+    @DisplayName("Un dia sin prestamos se quita y la consulta ya no lo recorre")
+    @Test
+    void testEmptyDaysAreRemoved() {
+        // GIVEN
+        var scheduler = new OverdueScheduler();
+        var user = new User("1", "Anderson Mesa", "anderson@email.com");
+        var date = LocalDate.of(2024, 1, 1);
+        var first = new Loan(user, new Book("111", "Libro 1", "Autor"), date, date.plusDays(14), LoanState.STARTED, null);
+        var second = new Loan(user, new Book("222", "Libro 2", "Autor"), date, date.plusDays(14), LoanState.STARTED, null);
+        var third = new Loan(user, new Book("333", "Libro 3", "Autor"), date, date.plusDays(20), LoanState.STARTED, null);
+        scheduler.schedule(first);
+        scheduler.schedule(second);
+        scheduler.schedule(third);
+
+        // WHEN
+        scheduler.cancel(first);
+        var afterFirst = scheduler.getScheduledDays();
+        scheduler.cancel(second);
+
+        // THEN
+        assertEquals(2, afterFirst);
+        assertEquals(1, scheduler.getScheduledDays());
+        assertTrue(scheduler.getOverdueLoans(date.plusDays(20)).isEmpty());
+        assertEquals(1, scheduler.countOverdueLoans(date.plusDays(21)));
+    }
+}
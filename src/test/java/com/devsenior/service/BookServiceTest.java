@@ -8,10 +8,27 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.devsenior.exception.DuplicateException;
 import com.devsenior.exception.NotFoundException;
+import com.devsenior.importer.RowErrorType;
+import com.devsenior.model.Book;
+import com.devsenior.pagination.BookSort;
 
 public class BookServiceTest {
 
@@ -98,6 +115,26 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    void testGetAllBooksKeepsInsertionOrder() throws Exception {
+        // GIVEN
+        for (int i = 20; i > 0; i--) {
+            service.addBook("isbn-" + i, "Libro " + i, "Anderson Mesa");
+        }
+        service.deleteBook("isbn-10");
+        service.restoreBooks(List.of(new Book("isbn-0", "Libro 0", "Cesar Diaz"), new Book("isbn-10", "Libro 10", "Cesar Diaz")));
+
+        // WHEN
+        var books = service.getAllBooks();
+
+        // THEN
+        assertEquals(21, books.size());
+        assertEquals("isbn-20", books.get(0).getIsbn());
+        assertEquals("isbn-1", books.get(18).getIsbn());
+        assertEquals("isbn-0", books.get(19).getIsbn());
+        assertEquals("isbn-10", books.get(20).getIsbn());
+    }
+
     @Test
     void testGetBookByIsbn() throws NotFoundException {
 
@@ -129,4 +166,194 @@ public class BookServiceTest {
         // WHEN - THEN
         assertThrows(NotFoundException.class, () -> service.getBookByIsbn(isbn));
     }
+
+    @Test
+    void testAddBookWithDuplicatedIsbn() throws NotFoundException {
+        // GIVEN
+        var isbn = "123456789";
+        service.addBook(isbn, "Aprendiendo Java", "Cesar Diaz");
+
+        // WHEN - THEN
+        assertThrows(DuplicateException.class, () -> service.addBook(isbn, "Otro titulo", "Otro autor"));
+        assertEquals("Aprendiendo Java", service.getBookByIsbn(isbn).getTitle());
+        assertEquals(1, service.getAllBooks().size());
+    }
+
+    @Test
+    void testImportBooksReportsDuplicatedAndInvalidRows() throws IOException, NotFoundException {
+        // GIVEN
+        service.addBook("111", "Existente", "Cesar Diaz");
+        var csv = """
+                isbn,title,author
+                123,Aprendiendo Java,Cesar Diaz
+                456,"Programacion, segunda edicion",Anderson Mesa
+                123,Repetido,Otro autor
+                111,Ya en el catalogo,Otro autor
+                789,Sin autor
+                """;
+
+        // WHEN
+        var result = service.importBooks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ',');
+
+        // THEN
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(1, result.getInvalid());
+        assertEquals(RowErrorType.DUPLICATE, result.getErrors().get(0).getType());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertEquals("Programacion, segunda edicion", service.getBookByIsbn("456").getTitle());
+        assertEquals(3, service.getAllBooks().size());
+    }
+
+    @Test
+    void testImportBooksFromTsvFile(@TempDir Path dir) throws IOException, NotFoundException {
+        // GIVEN
+        var file = dir.resolve("libros.tsv");
+        var rows = 50_000;
+        try (var writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(i + "\tLibro " + i + "\tAutor " + i + "\n");
+            }
+        }
+
+        // WHEN
+        var result = service.importBooks(file);
+
+        // THEN
+        assertEquals(rows, result.getImported());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(rows, service.getAllBooks().size());
+        assertEquals("Libro 49999", service.getBookByIsbn("49999").getTitle());
+    }
+
+    @Test
+    void testSearchBooksByTitleAndAuthor() {
+        // GIVEN
+        service.addBook("1", "Programación en Java", "Cesar Díaz");
+        service.addBook("2", "Java avanzado", "Anderson Mesa");
+        service.addBook("3", "Estructuras de datos", "Cesar Diaz");
+
+        // WHEN
+        var byTitle = service.searchBooks("JAVA", 10);
+        var byAuthorPrefix = service.searchBooks("ces dia", 10);
+        var withAccents = service.searchBooks("programacion", 10);
+
+        // THEN
+        assertEquals(2, byTitle.size());
+        assertEquals(2, byAuthorPrefix.size());
+        assertEquals(1, withAccents.size());
+        assertEquals("1", withAccents.get(0).getIsbn());
+        assertTrue(service.searchBooks("python", 10).isEmpty());
+    }
+
+    @Test
+    void testSearchBooksRankingAndLimit() throws NotFoundException {
+        // GIVEN
+        service.addBook("1", "Historia de Java", "Anderson Mesa");
+        service.addBook("2", "Javascript basico", "Anderson Mesa");
+        service.addBook("3", "Cocina", "Java Perez");
+
+        // WHEN
+        var result = service.searchBooks("java", 2);
+
+        // THEN - la palabra completa en el titulo pesa mas que en el autor o como prefijo
+        assertEquals(2, result.size());
+        assertEquals("1", result.get(0).getIsbn());
+        assertEquals("3", result.get(1).getIsbn());
+
+        service.deleteBook("1");
+        assertEquals("3", service.searchBooks("java", 2).get(0).getIsbn());
+    }
+
+    @Test
+    void testSearchBooksMatchesFullScan() throws NotFoundException {
+        // GIVEN - palabras que comparten prefijos y libros borrados en el medio
+        var words = List.of("ja", "java", "javascript", "jaguar", "pi", "pinto", "python", "luz");
+        var random = new Random(11);
+        var titles = new LinkedHashMap<String, String[]>();
+        for (int i = 0; i < 3000; i++) {
+            var title = words.get(random.nextInt(words.size())) + " " + words.get(random.nextInt(words.size()));
+            var author = words.get(random.nextInt(words.size()));
+            service.addBook(Integer.toString(i), title, author);
+            titles.put(Integer.toString(i), new String[] {title, author});
+        }
+        for (int i = 0; i < 3000; i += 3) {
+            service.deleteBook(Integer.toString(i));
+            titles.remove(Integer.toString(i));
+        }
+
+        for (var query : List.of("ja", "java", "jav pi", "p", "python ja", "luz luz", "x")) {
+            // WHEN
+            var result = service.searchBooks(query, 25);
+
+            // THEN - mismo resultado que puntuar todos los libros, a igual puntaje el mas antiguo
+            var expected = new ArrayList<String>();
+            var scores = new HashMap<String, Integer>();
+            for (var entry : titles.entrySet()) {
+                var total = 0;
+                for (var token : query.split(" ")) {
+                    var score = score(entry.getValue(), token);
+                    total = score == 0 || total < 0 ? -1 : total + score;
+                }
+                if (total > 0) {
+                    expected.add(entry.getKey());
+                    scores.put(entry.getKey(), total);
+                }
+            }
+            expected.sort(Comparator.comparing(scores::get).reversed());
+            assertEquals(expected.subList(0, Math.min(25, expected.size())), result.stream().map(Book::getIsbn).toList(), query);
+        }
+    }
+
+    private static int score(String[] book, String token) {
+        var score = 0;
+        for (var word : book[0].split(" ")) {
+            score = Math.max(score, word.equals(token) ? 4 : word.startsWith(token) ? 2 : 0);
+        }
+        score = Math.max(score, book[1].equals(token) ? 3 : book[1].startsWith(token) ? 1 : 0);
+        return score;
+    }
+
+    @Test
+    void testFindBookByIsbn() {
+        // GIVEN
+        service.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+
+        // WHEN - THEN
+        assertEquals("Aprendiendo Java", service.findBookByIsbn("123").orElseThrow().getTitle());
+        assertTrue(service.findBookByIsbn("456").isEmpty());
+    }
+
+    @Test
+    void testNotFoundExceptionMessageWithoutStackTrace() {
+        // WHEN
+        var exception = assertThrows(NotFoundException.class, () -> service.getBookByIsbn("456"));
+
+        // THEN
+        assertEquals("No fue encontrado el libro con isbn: 456", exception.getMessage());
+        assertEquals("456", exception.getKey());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void testBooksPageByTitle() {
+        // GIVEN
+        service.addBook("333", "programacion", "Anderson Mesa");
+        service.addBook("111", "Aprendiendo Java", "Cesar Diaz");
+        service.addBook("222", "Bases de datos", "Cesar Diaz");
+
+        // WHEN
+        var first = service.getBooksPage(BookSort.TITLE, null, 2);
+        service.addBook("000", "Algoritmos", "Cesar Diaz");
+        var second = service.getBooksPage(BookSort.TITLE, first.getNextCursor(), 2);
+
+        // THEN
+        assertEquals("111", first.getItems().get(0).getIsbn());
+        assertEquals("222", first.getItems().get(1).getIsbn());
+        assertTrue(first.hasNext());
+        assertEquals(1, second.getItems().size());
+        assertEquals("333", second.getItems().get(0).getIsbn());
+        assertFalse(second.hasNext());
+        assertEquals("000", service.getBooksPage(BookSort.ISBN, null, 1).getItems().get(0).getIsbn());
+    }
 }
@@ -0,0 +1,107 @@
+package com.devsenior.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+
+public class LibraryAsyncServiceTest {
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService loanService;
+    private LibraryAsyncService async;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+        userService = new UserService();
+        loanService = new LoanService(bookService, userService);
+        async = new LibraryAsyncService(bookService, userService, loanService, 16, 20_000);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        userService.addUser("123456", "Anderson Mesa", "anderson@email.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        async.close();
+    }
+
+    @Test
+    void testLoanAndLookups() {
+        // WHEN
+        async.addLoan("123456", "1234567890").join();
+
+        // THEN
+        assertEquals("Aprendiendo Java", async.getBookByIsbn("1234567890").join().getTitle());
+        assertEquals(1, async.getLoansByUserId("123456").join().size());
+        assertTrue(async.findUserById("654321").join().isEmpty());
+        async.returnBook("123456", "1234567890").join();
+        assertTrue(loanService.isAvailable("1234567890"));
+    }
+
+    @Test
+    void testNotFoundCompletesExceptionally() {
+        // WHEN
+        var error = assertThrows(CompletionException.class, () -> async.getUserById("654321").join());
+
+        // THEN
+        assertInstanceOf(NotFoundException.class, error.getCause());
+    }
+
+    @Test
+    void testManyConcurrentCallers() {
+        // GIVEN
+        var futures = new CompletableFuture<?>[10_000];
+
+        // WHEN
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = async.getBookByIsbn("1234567890");
+        }
+        CompletableFuture.allOf(futures).join();
+
+        // THEN
+        assertEquals(0, async.getPending());
+    }
+
+    @Test
+    void testRejectsWhenTooManyPending() throws Exception {
+        // GIVEN
+        var blocked = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        var slowBooks = Mockito.mock(BookService.class);
+        Mockito.when(slowBooks.getBookByIsbn("1234567890")).thenAnswer(invocation -> {
+            started.countDown();
+            blocked.await();
+            return new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        });
+        try (var limited = new LibraryAsyncService(slowBooks, userService, loanService, 1, 2)) {
+            var first = limited.getBookByIsbn("1234567890");
+            started.await();
+            var second = limited.getBookByIsbn("1234567890");
+
+            // WHEN
+            var third = limited.getBookByIsbn("1234567890");
+
+            // THEN
+            var error = assertThrows(CompletionException.class, third::join);
+            assertInstanceOf(RejectedExecutionException.class, error.getCause());
+            blocked.countDown();
+            assertEquals("Aprendiendo Java", first.join().getTitle());
+            assertEquals("Aprendiendo Java", second.join().getTitle());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.devsenior.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.LoanState;
+
+public class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int BOOKS = 64;
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService service;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        bookService = new BookService();
+        userService = new UserService();
+        service = new LoanService(bookService, userService);
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < BOOKS; i++) {
+            bookService.addBook("isbn-" + i, "Libro " + i, "Autor " + i);
+        }
+        for (int i = 0; i < THREADS; i++) {
+            userService.addUser("user-" + i, "Usuario " + i, "user" + i + "@email.com");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("Solo un hilo puede prestar el mismo libro al mismo tiempo")
+    @Test
+    void testConcurrentAddLoanSameIsbn() throws Exception {
+        // GIVEN
+        var start = new CountDownLatch(1);
+        var lent = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREADS; i++) {
+            var userId = "user-" + i;
+            tasks.add(() -> {
+                start.await();
+                try {
+                    service.addLoan(userId, "isbn-0");
+                    lent.incrementAndGet();
+                } catch (NotFoundException e) {
+                    // otro hilo ya tiene el libro
+                }
+                return null;
+            });
+        }
+
+        // WHEN
+        var futures = tasks.stream().map(executor::submit).toList();
+        start.countDown();
+        for (var future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        // THEN
+        assertEquals(1, lent.get());
+        assertEquals(1, service.getLoans().size());
+    }
+
+    @DisplayName("Prestar y devolver en paralelo nunca presta dos veces el mismo libro")
+    @Test
+    void testNoDoubleLendingUnderStress() throws Exception {
+        // GIVEN
+        var holders = new AtomicIntegerArray(BOOKS);
+        var violations = new AtomicInteger();
+        var iterations = 20_000;
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < THREADS; i++) {
+            var userId = "user-" + i;
+            tasks.add(() -> {
+                var random = ThreadLocalRandom.current();
+                var lent = 0;
+                for (int n = 0; n < iterations; n++) {
+                    var book = random.nextInt(BOOKS);
+                    var isbn = "isbn-" + book;
+                    try {
+                        service.addLoan(userId, isbn);
+                    } catch (NotFoundException e) {
+                        continue;
+                    }
+                    if (holders.incrementAndGet(book) != 1) {
+                        violations.incrementAndGet();
+                    }
+                    lent++;
+                    holders.decrementAndGet(book);
+                    service.returnBook(userId, isbn);
+                }
+                return lent;
+            });
+        }
+
+        // WHEN
+        var total = 0;
+        for (var future : executor.invokeAll(tasks)) {
+            total += future.get();
+        }
+
+        // THEN
+        assertEquals(0, violations.get());
+        assertEquals(total, service.getLoans().size());
+        assertTrue(service.getLoans().stream().allMatch(loan -> loan.getState() == LoanState.FINISHED));
+    }
+}
@@ -3,20 +3,31 @@ package com.devsenior.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import com.devsenior.exception.DuplicateException;
 import com.devsenior.exception.NotFoundException;
 import com.devsenior.model.Book;
+import com.devsenior.model.HoldState;
 import com.devsenior.model.Loan;
+import com.devsenior.model.LoanRequest;
 import com.devsenior.model.LoanState;
 import com.devsenior.model.User;
+import com.devsenior.persistence.Journal;
 
 public class LoanServiceTest {
 
@@ -28,6 +39,10 @@ public class LoanServiceTest {
     void setup(){
         bookService = Mockito.mock(BookService.class);
         userService = Mockito.mock(UserService.class);
+        Mockito.when(bookService.canonicalIsbn(Mockito.anyString())).thenAnswer(call -> call.getArgument(0));
+        // Al registrar el prestamo se confirma que el usuario sigue existiendo
+        Mockito.when(userService.findUserById(Mockito.anyString()))
+                .thenAnswer(call -> Optional.of(new User(call.getArgument(0), "Usuario", "usuario@email.com")));
         // Mockito.mock - reemplza la instancia real de una clase, es decir new BookService y solo simula la clase para usar sus metodos
 
         service = new LoanService(bookService, userService); 
@@ -260,5 +275,342 @@ public class LoanServiceTest {
 
     }
 
+    @DisplayName("Obtener solo los prestamos del usuario consultado")
+    @Test
+    void testGetLoansByUserIdReturnsOnlyUserLoans() throws NotFoundException {
+        // GIVEN
+        var mockUser1 = new User("123", "Jhon", "Jhon@email.com");
+        var mockUser2 = new User("456", "Laura", "Laura@email.com");
+        var mockBook1 = new Book("1234567890", "Aprendiendo Java", "Anderson Mesa");
+        var mockBook2 = new Book("0987654321", "Aprendiendo a programar", "Anderson Mesa");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser1);
+        Mockito.when(userService.getUserById("456")).thenReturn(mockUser2);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook1);
+        Mockito.when(bookService.getBookByIsbn("0987654321")).thenReturn(mockBook2);
+
+        service.addLoan("123", "1234567890");
+        service.addLoan("456", "0987654321");
+
+        // WHEN
+        var loans = service.getLoansByUserId("123");
+
+        // THEN
+        assertEquals(1, loans.size());
+        assertEquals("123", loans.get(0).getUser().getId());
+    }
+
+    @DisplayName("Prestar de nuevo un libro devuelto")
+    @Test
+    void testAddLoanAfterReturn() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+
+        service.addLoan("123", "1234567890");
+        service.returnBook("123", "1234567890");
+
+        // WHEN
+        service.addLoan("123", "1234567890");
+
+        // THEN
+        assertEquals(2, service.getLoansByUserId("123").size());
+        assertThrows(NotFoundException.class, () -> service.addLoan("123", "1234567890"));
+    }
+
+    @DisplayName("Un prestamo devuelto se archiva y sigue apareciendo en el historial del usuario")
+    @Test
+    void testReturnedLoanIsArchived() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook1 = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        var mockBook2 = new Book("0987654321", "Aprendiendo a programar", "Anderson Mesa");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook1);
+        Mockito.when(bookService.getBookByIsbn("0987654321")).thenReturn(mockBook2);
+
+        service.addLoan("123", "1234567890", LocalDate.of(2024, 3, 1));
+        service.addLoan("123", "0987654321");
+
+        // WHEN
+        service.returnBook("123", "1234567890", LocalDate.of(2024, 3, 10));
+
+        // THEN
+        var loans = service.getLoansByUserId("123");
+        assertEquals(2, loans.size());
+        var archived = loans.get(0);
+        assertEquals(LoanState.FINISHED, archived.getState());
+        assertEquals("1234567890", archived.getBook().getIsbn());
+        assertEquals(LocalDate.of(2024, 3, 1), archived.getLoanDate());
+        assertEquals(LocalDate.of(2024, 3, 10), archived.getReturnDate());
+        assertEquals(LoanState.STARTED, loans.get(1).getState());
+        assertEquals(2, service.getLoans().size());
+    }
+
+    @DisplayName("Prestar varios libros en un lote reporta el resultado de cada uno")
+    @Test
+    void testAddLoansBatch() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook1 = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        var mockBook2 = new Book("0987654321", "Aprendiendo a programar", "Anderson Mesa");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook1);
+        Mockito.when(bookService.getBookByIsbn("0987654321")).thenReturn(mockBook2);
+        Mockito.when(bookService.getBookByIsbn("555")).thenThrow(new NotFoundException("No fue encontrado el libro con isbn: 555"));
+        service.addLoan("123", "0987654321");
+
+        // WHEN
+        var results = service.addLoans("123", List.of("1234567890", "0987654321", "555", "1234567890"));
+
+        // THEN
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertEquals(2, service.getLoansByUserId("123").size());
+        Mockito.verify(userService, Mockito.times(2)).getUserById("123");
+    }
+
+    @DisplayName("Devolver varios libros en un lote reporta el resultado de cada uno")
+    @Test
+    void testReturnBooksBatch() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+        service.addLoan("123", "1234567890");
+
+        // WHEN
+        var results = service.returnBooks(List.of(
+                new LoanRequest("123", "1234567890"),
+                new LoanRequest("123", "1234567890"),
+                new LoanRequest("456", "0987654321")));
+
+        // THEN
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(LoanState.FINISHED, service.getLoansByUserId("123").get(0).getState());
+    }
+
+    @DisplayName("Consultar disponibilidad y devolver sin excepciones")
+    @Test
+    void testLookupsWithoutExceptions() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+        service.addLoan("123", "1234567890");
+
+        // WHEN - THEN
+        assertFalse(service.isAvailable("1234567890"));
+        assertEquals("123", service.findActiveLoan("1234567890").orElseThrow().getUser().getId());
+        assertTrue(service.findLoansByUserId("456").isEmpty());
+        assertFalse(service.tryReturnBook("456", "1234567890"));
+        assertTrue(service.tryReturnBook("123", "1234567890"));
+        assertTrue(service.isAvailable("1234567890"));
+        assertTrue(service.findActiveLoan("1234567890").isEmpty());
+    }
+
+    @DisplayName("Consultar prestamos vencidos segun la fecha de vencimiento")
+    @Test
+    void testOverdueLoans() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var firstBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        var secondBook = new Book("0987654321", "Aprendiendo Python", "Cesar Diaz");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(firstBook);
+        Mockito.when(bookService.getBookByIsbn("0987654321")).thenReturn(secondBook);
+        var loanDate = LocalDate.of(2024, 1, 1);
+
+        // WHEN
+        service.addLoan("123", "1234567890", loanDate);
+        service.addLoan("123", "0987654321", loanDate, loanDate.plusDays(30));
+
+        // THEN
+        assertEquals(loanDate.plus(LoanService.DEFAULT_LOAN_PERIOD), service.findActiveLoan("1234567890").orElseThrow().getDueDate());
+        assertTrue(service.getOverdueLoans(loanDate.plusDays(14)).isEmpty());
+        assertEquals(1, service.getOverdueLoans(loanDate.plusDays(15)).size());
+        assertEquals(2, service.getOverdueLoans(loanDate.plusDays(31)).size());
+    }
+
+    @DisplayName("Un libro devuelto deja de estar vencido")
+    @Test
+    void testReturnedLoanIsNotOverdue() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+        var loanDate = LocalDate.of(2024, 1, 1);
+        service.setLoanPeriod(Period.ofDays(7));
+        service.addLoan("123", "1234567890", loanDate);
+
+        // WHEN
+        service.returnBook("123", "1234567890", loanDate.plusDays(20));
+
+        // THEN
+        assertTrue(service.getOverdueLoans(loanDate.plusDays(20)).isEmpty());
+        assertEquals(loanDate.plusDays(7), service.getLoansByUserId("123").get(0).getDueDate());
+    }
+
+    @DisplayName("Paginar los prestamos activos por fecha de prestamo")
+    @Test
+    void testActiveLoansPage() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        for (var isbn : List.of("111", "222", "333")) {
+            Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "Libro " + isbn, "Autor"));
+        }
+        service.addLoan("123", "333", LocalDate.of(2024, 1, 1));
+        service.addLoan("123", "111", LocalDate.of(2024, 1, 3));
+        service.addLoan("123", "222", LocalDate.of(2024, 1, 2));
+        service.returnBook("123", "222");
+
+        // WHEN
+        var first = service.getActiveLoansPage(null, 1);
+        var second = service.getActiveLoansPage(first.getNextCursor(), 1);
+
+        // THEN
+        assertEquals("333", first.getItems().get(0).getBook().getIsbn());
+        assertEquals("111", second.getItems().get(0).getBook().getIsbn());
+        assertFalse(second.hasNext());
+    }
+
+    @DisplayName("No se registra el prestamo de un usuario borrado despues de buscarlo")
+    @Test
+    void testAddLoanForUserDeletedMeanwhile() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("123", "Jhon", "Jhon@email.com");
+        Mockito.when(userService.getUserById("123")).thenReturn(mockUser);
+        Mockito.when(userService.findUserById("123")).thenReturn(Optional.empty());
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(new Book("1234567890", "Aprendiendo Java", "Cesar Diaz"));
 
+        // WHEN - THEN
+        assertThrows(NotFoundException.class, () -> service.addLoan("123", "1234567890"));
+        assertTrue(service.isAvailable("1234567890"));
+        assertFalse(service.hasActiveLoans("123"));
+        assertTrue(service.getLoans().isEmpty());
+    }
+
+    @DisplayName("Reservar un libro prestado y recibirlo al devolverse, en orden de llegada")
+    @Test
+    void testHoldIsPromotedOnReturn() throws NotFoundException {
+        // GIVEN
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+        for (var id : List.of("1", "2", "3")) {
+            var user = new User(id, "Usuario " + id, id + "@email.com");
+            Mockito.when(userService.getUserById(id)).thenReturn(user);
+            Mockito.when(userService.findUserById(id)).thenReturn(Optional.of(user));
+        }
+        var date = LocalDate.of(2024, 1, 1);
+        assertTrue(service.addLoanOrHold("1", "1234567890", date).isEmpty());
+
+        // WHEN
+        var second = service.addLoanOrHold("2", "1234567890", date).orElseThrow();
+        var third = service.addLoanOrHold("3", "1234567890", date).orElseThrow();
+        assertSame(second, service.addLoanOrHold("2", "1234567890", date).orElseThrow());
+        service.returnBook("1", "1234567890", date.plusDays(3));
+
+        // THEN
+        var loan = service.findActiveLoan("1234567890").orElseThrow();
+        assertEquals("2", loan.getUser().getId());
+        assertEquals(date.plusDays(3), loan.getLoanDate());
+        assertEquals(HoldState.FULFILLED, second.getState());
+        assertEquals(List.of(third), service.getHolds("1234567890"));
+        assertThrows(DuplicateException.class, () -> service.addLoanOrHold("2", "1234567890", date));
+    }
+
+    @DisplayName("Las reservas canceladas o vencidas no reciben el libro")
+    @Test
+    void testCancelledAndExpiredHoldsAreSkipped() throws NotFoundException {
+        // GIVEN
+        var mockBook = new Book("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        Mockito.when(bookService.getBookByIsbn("1234567890")).thenReturn(mockBook);
+        for (var id : List.of("1", "2", "3", "4")) {
+            var user = new User(id, "Usuario " + id, id + "@email.com");
+            Mockito.when(userService.getUserById(id)).thenReturn(user);
+            Mockito.when(userService.findUserById(id)).thenReturn(Optional.of(user));
+        }
+        var date = LocalDate.of(2024, 1, 1);
+        service.setHoldPeriod(Period.ofDays(5));
+        service.addLoan("1", "1234567890", date);
+        var expired = service.addLoanOrHold("2", "1234567890", date).orElseThrow();
+        service.addLoanOrHold("3", "1234567890", date.plusDays(1));
+        var waiting = service.addLoanOrHold("4", "1234567890", date.plusDays(8)).orElseThrow();
+
+        // WHEN
+        assertTrue(service.cancelHold("3", "1234567890"));
+        assertFalse(service.cancelHold("3", "1234567890"));
+        service.returnBook("1", "1234567890", date.plusDays(10));
+
+        // THEN
+        assertEquals(HoldState.EXPIRED, expired.getState());
+        assertEquals(HoldState.FULFILLED, waiting.getState());
+        assertEquals("4", service.findActiveLoan("1234567890").orElseThrow().getUser().getId());
+        assertTrue(service.getHolds("1234567890").isEmpty());
+    }
+
+    @DisplayName("Vencer reservas por fecha sin esperar a que se devuelva el libro")
+    @Test
+    void testExpireHolds() throws NotFoundException {
+        // GIVEN
+        var mockUser = new User("1", "Jhon", "Jhon@email.com");
+        Mockito.when(userService.getUserById("1")).thenReturn(mockUser);
+        Mockito.when(userService.getUserById("2")).thenReturn(new User("2", "Ana", "ana@email.com"));
+        for (var isbn : List.of("111", "222")) {
+            Mockito.when(bookService.getBookByIsbn(isbn)).thenReturn(new Book(isbn, "Libro " + isbn, "Autor"));
+            service.addLoan("1", isbn, LocalDate.of(2024, 1, 1));
+        }
+        service.setHoldPeriod(Period.ofDays(10));
+        service.addLoanOrHold("2", "111", LocalDate.of(2024, 1, 1));
+        service.addLoanOrHold("2", "222", LocalDate.of(2024, 1, 20));
+
+        // WHEN
+        var expired = service.expireHolds(LocalDate.of(2024, 1, 15));
+
+        // THEN
+        assertEquals(1, expired.size());
+        assertEquals("111", expired.get(0).getIsbn());
+        assertTrue(service.getHolds("111").isEmpty());
+        assertEquals(1, service.getHolds("222").size());
+    }
+
+    @DisplayName("Si la bitacora falla, prestar, devolver y reservar no cambian nada")
+    @Test
+    void testFailingJournalLeavesNothingHalfDone() throws NotFoundException {
+        // GIVEN
+        var date = LocalDate.of(2024, 1, 1);
+        Mockito.when(userService.getUserById("1")).thenReturn(new User("1", "Jhon", "Jhon@email.com"));
+        Mockito.when(userService.getUserById("2")).thenReturn(new User("2", "Ana", "ana@email.com"));
+        Mockito.when(bookService.getBookByIsbn("111")).thenReturn(new Book("111", "Libro 111", "Autor"));
+        Mockito.when(bookService.getBookByIsbn("222")).thenReturn(new Book("222", "Libro 222", "Autor"));
+        service.addLoan("1", "111", date);
+        var journal = Mockito.mock(Journal.class);
+        Mockito.doThrow(new UncheckedIOException(new IOException("Disco lleno")))
+                .when(journal).append(Mockito.any(), Mockito.any(), Mockito.any(String[].class));
+        service.setJournal(journal);
+
+        // WHEN
+        assertThrows(UncheckedIOException.class, () -> service.addLoan("1", "222", date));
+        assertThrows(UncheckedIOException.class, () -> service.returnBook("1", "111", date.plusDays(3)));
+        assertThrows(UncheckedIOException.class, () -> service.addLoanOrHold("2", "111", date));
+
+        // THEN
+        assertTrue(service.isAvailable("222"));
+        assertEquals(1, service.getLoans().size());
+        assertEquals(LoanState.STARTED, service.findActiveLoan("111").orElseThrow().getState());
+        assertEquals(1, service.getOverdueLoans(date.plusDays(30)).size());
+        assertEquals(1, service.getActiveLoansPage(null, 10).getItems().size());
+        assertTrue(service.getHolds("111").isEmpty());
+        assertEquals(0, service.getLoanChangesSince(1).size());
+    }
 }
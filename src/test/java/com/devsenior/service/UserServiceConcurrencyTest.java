@@ -0,0 +1,128 @@
+package com.devsenior.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.DuplicateException;
+import com.devsenior.exception.NotFoundException;
+
+public class UserServiceConcurrencyTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private UserService service;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        service = new UserService();
+        executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            service.addUser("user-" + i, "Usuario " + i, "user" + i + "@email.com");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("Solo un usuario puede quedarse con el mismo email")
+    @Test
+    void testConcurrentUpdateToSameEmail() throws Exception {
+        // GIVEN
+        var start = new CountDownLatch(1);
+        var updated = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREADS; i++) {
+            var userId = "user-" + i;
+            tasks.add(() -> {
+                start.await();
+                try {
+                    service.updateUserEmail(userId, "Compartido@Email.com");
+                    updated.incrementAndGet();
+                } catch (DuplicateException e) {
+                    // otro hilo ya tomo el email
+                }
+                return null;
+            });
+        }
+
+        // WHEN
+        var futures = tasks.stream().map(executor::submit).toList();
+        start.countDown();
+        for (var future : futures) {
+            future.get();
+        }
+
+        // THEN
+        assertEquals(1, updated.get());
+        var owner = service.getUserByEmail("compartido@email.com");
+        assertEquals("Compartido@Email.com", owner.getEmail());
+    }
+
+    @DisplayName("El indice de emails sigue consistente con cambios concurrentes")
+    @Test
+    void testConcurrentEmailChangesKeepIndexConsistent() throws Exception {
+        // GIVEN
+        var emails = 2 * THREADS;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREADS; i++) {
+            var userId = "user-" + i;
+            tasks.add(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int j = 0; j < 2_000; j++) {
+                    try {
+                        service.updateUserEmail(userId, "pool" + random.nextInt(emails) + "@email.com");
+                    } catch (DuplicateException e) {
+                        // email ocupado, se intenta con otro
+                    }
+                }
+                return null;
+            });
+        }
+
+        // WHEN
+        for (var future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        // THEN
+        var seen = new HashSet<String>();
+        for (var user : service.getAllUsers()) {
+            assertSame(user, service.getUserByEmail(user.getEmail()));
+            seen.add(user.getEmail().toLowerCase());
+        }
+        assertEquals(THREADS, seen.size());
+        var indexed = 0;
+        for (int i = 0; i < emails; i++) {
+            try {
+                var user = service.getUserByEmail("pool" + i + "@email.com");
+                assertEquals("pool" + i + "@email.com", user.getEmail());
+                indexed++;
+            } catch (NotFoundException e) {
+                // email libre
+            }
+        }
+        for (int i = 0; i < THREADS; i++) {
+            if (service.findUserByEmail("user" + i + "@email.com").isPresent()) {
+                indexed++;
+            }
+        }
+        assertEquals(THREADS, indexed);
+    }
+}
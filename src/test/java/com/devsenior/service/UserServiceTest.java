@@ -8,12 +8,24 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
+import com.devsenior.exception.DuplicateException;
 import com.devsenior.exception.NotFoundException;
+import com.devsenior.exception.ReferentialIntegrityException;
+import com.devsenior.model.HoldState;
+import com.devsenior.model.LoanState;
+import com.devsenior.pagination.UserSort;
+import com.devsenior.persistence.Journal;
 
 public class UserServiceTest {
 
@@ -180,4 +192,236 @@ public class UserServiceTest {
         assertFalse(name == service.getUserById(id).getName());
 
     }
+
+    @Test
+    void testAddUserWithDuplicatedId() {
+        // GIVEN
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+
+        // WHEN - THEN
+        assertThrows(DuplicateException.class, () -> service.addUser("123456", "Andres Mesa", "andres@email.com"));
+    }
+
+    @Test
+    void testImportUsers() throws IOException, NotFoundException {
+        // GIVEN
+        var tsv = "id\tname\temail\tregisterDate\n"
+                + "1\tAnderson Mesa\tanderson@email.com\t2024-01-15\n"
+                + "2\tAndres Mesa\tandres@email.com\n"
+                + "1\tRepetido\trepetido@email.com\n"
+                + "3\tSin email\tsin-email\n"
+                + "4\tFecha mala\tfecha@email.com\t15/01/2024\n";
+
+        // WHEN
+        var result = service.importUsers(new ByteArrayInputStream(tsv.getBytes(StandardCharsets.UTF_8)), '\t');
+
+        // THEN
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        assertEquals(LocalDate.of(2024, 1, 15), service.getUserById("1").getRegisterDate());
+        assertEquals(2, service.getAllUsers().size());
+    }
+
+    @Test
+    void testFindUserById() {
+        // GIVEN
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+
+        // WHEN - THEN
+        assertEquals("Anderson Mesa", service.findUserById("123456").orElseThrow().getName());
+        assertTrue(service.findUserById("654321").isEmpty());
+    }
+
+    @Test
+    void testDeleteUserWithActiveLoansIsBlocked() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+        loanService.addLoan("123456", "1234567890");
+
+        // WHEN - THEN
+        assertThrows(ReferentialIntegrityException.class, () -> service.deleteUser("123456"));
+        assertNotNull(service.getUserById("123456"));
+
+        loanService.returnBook("123456", "1234567890");
+        service.deleteUser("123456");
+        assertTrue(service.findUserById("123456").isEmpty());
+    }
+
+    @Test
+    void testDeleteUserCascadesActiveLoans() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        loanService.setIntegrityMode(IntegrityMode.CASCADE);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        bookService.addBook("0987654321", "Aprendiendo Python", "Cesar Diaz");
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+        loanService.addLoan("123456", "1234567890");
+        loanService.addLoan("123456", "0987654321");
+
+        // WHEN
+        service.deleteUser("123456");
+
+        // THEN
+        assertTrue(loanService.isAvailable("1234567890"));
+        assertTrue(loanService.isAvailable("0987654321"));
+        assertFalse(loanService.hasActiveLoans("123456"));
+        for (var loan : loanService.getLoans()) {
+            assertEquals(LoanState.FINISHED, loan.getState());
+        }
+    }
+
+    @Test
+    void testDeleteUserCancelsHolds() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        service.addUser("1", "Anderson Mesa", "anderson@email.com");
+        service.addUser("2", "Andres Mesa", "andres@email.com");
+        loanService.addLoan("1", "1234567890");
+        var hold = loanService.addLoanOrHold("2", "1234567890").orElseThrow();
+
+        // WHEN
+        service.deleteUser("2");
+
+        // THEN
+        assertEquals(HoldState.CANCELLED, hold.getState());
+        assertTrue(loanService.getHolds("1234567890").isEmpty());
+    }
+
+    @Test
+    void testDeleteHookCanOnlyBeSetOnce() {
+        // GIVEN
+        var bookService = new BookService();
+        new LoanService(bookService, service);
+
+        // WHEN - THEN
+        assertThrows(IllegalStateException.class, () -> new LoanService(bookService, service));
+    }
+
+    @Test
+    void testDeleteUsersInBulk() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        service.addUser("1", "Anderson Mesa", "anderson@email.com");
+        service.addUser("2", "Andres Mesa", "andres@email.com");
+        service.addUser("3", "Cesar Diaz", "cesar@email.com");
+        loanService.addLoan("2", "1234567890");
+
+        // WHEN
+        var result = service.deleteUsers(List.of("1", "2", "3", "4"));
+
+        // THEN
+        assertEquals(2, result.getDeleted());
+        assertEquals(List.of("4"), result.getMissing());
+        assertEquals(List.of("2"), result.getBlocked());
+        assertEquals(1, service.getAllUsers().size());
+    }
+
+    @Test
+    void testUsersPageByNameAndRegisterDate() throws NotFoundException {
+        // GIVEN
+        service.addUser("1", "Cesar Diaz", "cesar@email.com", LocalDate.of(2024, 1, 1));
+        service.addUser("2", "anderson Mesa", "anderson@email.com", LocalDate.of(2024, 3, 1));
+        service.addUser("3", "Beatriz Ruiz", "beatriz@email.com", LocalDate.of(2024, 2, 1));
+        service.updateUserName("1", "Ana Diaz");
+
+        // WHEN
+        var byName = service.getUsersPage(UserSort.NAME, null, 2);
+        var rest = service.getUsersPage(UserSort.NAME, byName.getNextCursor(), 2);
+        var byDate = service.getUsersPage(UserSort.REGISTER_DATE, null, 3);
+
+        // THEN
+        assertEquals("1", byName.getItems().get(0).getId());
+        assertEquals("2", byName.getItems().get(1).getId());
+        assertEquals("3", rest.getItems().get(0).getId());
+        assertFalse(rest.hasNext());
+        assertEquals(List.of("1", "3", "2"), byDate.getItems().stream().map(user -> user.getId()).toList());
+    }
+
+    @Test
+    void testGetUserByEmail() throws NotFoundException {
+        // GIVEN
+        service.addUser("123456", "Anderson Mesa", "Anderson@Email.com");
+
+        // WHEN - THEN
+        assertEquals("123456", service.getUserByEmail(" anderson@email.COM ").getId());
+        assertTrue(service.findUserByEmail("otro@email.com").isEmpty());
+        assertThrows(NotFoundException.class, () -> service.getUserByEmail("otro@email.com"));
+    }
+
+    @Test
+    void testDuplicateEmailIsRejected() throws NotFoundException {
+        // GIVEN
+        service.addUser("1", "Anderson Mesa", "anderson@email.com");
+        service.addUser("2", "Andres Mesa", "andres@email.com");
+
+        // WHEN - THEN
+        assertThrows(DuplicateException.class, () -> service.addUser("3", "Otro", "ANDERSON@email.com"));
+        assertThrows(DuplicateException.class, () -> service.updateUserEmail("2", "anderson@email.com"));
+        assertTrue(service.findUserById("3").isEmpty());
+        assertEquals("2", service.getUserByEmail("andres@email.com").getId());
+
+        service.updateUserEmail("1", "Anderson@Email.com");
+        service.updateUserEmail("2", "andres.mesa@email.com");
+        service.deleteUser("1");
+        service.addUser("3", "Otro", "anderson@email.com");
+        assertEquals("3", service.getUserByEmail("anderson@email.com").getId());
+        assertTrue(service.findUserByEmail("andres@email.com").isEmpty());
+    }
+
+    @Test
+    void testFailedCascadeDeleteReopensTheUser() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        loanService.setIntegrityMode(IntegrityMode.CASCADE);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        bookService.addBook("0987654321", "Aprendiendo Python", "Cesar Diaz");
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+        loanService.addLoan("123456", "1234567890");
+        var journal = Mockito.mock(Journal.class);
+        Mockito.doThrow(new UncheckedIOException(new IOException("Disco lleno")))
+                .when(journal).append(Mockito.any(), Mockito.any(), Mockito.any(String[].class));
+        loanService.setJournal(journal);
+
+        // WHEN
+        assertThrows(UncheckedIOException.class, () -> service.deleteUser("123456"));
+        loanService.setJournal(null);
+
+        // THEN
+        assertNotNull(service.getUserById("123456"));
+        assertTrue(loanService.hasActiveLoans("123456"));
+        loanService.addLoan("123456", "0987654321");
+        assertEquals(2, loanService.getLoansByUserId("123456").size());
+    }
+
+    @Test
+    void testFailedBlockedDeleteReopensTheUser() throws NotFoundException {
+        // GIVEN
+        var bookService = new BookService();
+        var loanService = new LoanService(bookService, service);
+        bookService.addBook("1234567890", "Aprendiendo Java", "Cesar Diaz");
+        service.addUser("123456", "Anderson Mesa", "anderson@email.com");
+        var journal = Mockito.mock(Journal.class);
+        Mockito.doThrow(new UncheckedIOException(new IOException("Disco lleno")))
+                .when(journal).append(Mockito.any(), Mockito.any(), Mockito.any(String[].class));
+        service.setJournal(journal);
+
+        // WHEN
+        assertThrows(UncheckedIOException.class, () -> service.deleteUser("123456"));
+        service.setJournal(null);
+
+        // THEN
+        assertNotNull(service.getUserById("123456"));
+        loanService.addLoan("123456", "1234567890");
+        assertTrue(loanService.hasActiveLoans("123456"));
+    }
 }
@@ -0,0 +1,149 @@
+package com.devsenior.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.devsenior.exception.NotFoundException;
+import com.devsenior.model.Book;
+import com.devsenior.model.LoanState;
+import com.devsenior.service.BookService;
+import com.devsenior.service.LoanService;
+import com.devsenior.service.UserService;
+
+public class ChangeLogTest {
+
+    @Test
+    void testChangesSinceVersion() {
+        // GIVEN
+        var log = new ChangeLog<String>(8);
+        log.record(ChangeType.ADDED, "1", "uno");
+        var version = log.record(ChangeType.ADDED, "2", "dos");
+        log.record(ChangeType.REMOVED, "1", "uno");
+
+        // WHEN
+        var changes = log.changesSince(version);
+
+        // THEN
+        assertEquals(3, log.getVersion());
+        assertEquals(1, changes.size());
+        assertEquals(ChangeType.REMOVED, changes.get(0).getType());
+        assertEquals("1", changes.get(0).getKey());
+        assertTrue(log.changesSince(3).isEmpty());
+    }
+
+    @Test
+    void testChangesOlderThanTheLogAreRejected() {
+        // GIVEN
+        var log = new ChangeLog<String>(4);
+        for (int i = 0; i < 10; i++) {
+            log.record(ChangeType.ADDED, "" + i, "valor");
+        }
+
+        // WHEN - THEN
+        assertThrows(IllegalStateException.class, () -> log.changesSince(1));
+        assertEquals(4, log.changesSince(6).size());
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilNextChange() {
+        // GIVEN
+        var service = new BookService();
+        service.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+
+        // WHEN
+        var first = service.getBooksSnapshot();
+        var second = service.getBooksSnapshot();
+        service.addBook("456", "Programacion", "Anderson Mesa");
+        var third = service.getBooksSnapshot();
+
+        // THEN
+        assertSame(first, second);
+        assertEquals(1, first.getItems().size());
+        assertEquals(2, third.getItems().size());
+        assertEquals(1, service.getBookChangesSince(first.getVersion()).size());
+        assertThrows(UnsupportedOperationException.class, () -> first.getItems().add(new Book("1", "2", "3")));
+    }
+
+    @Test
+    void testChangesAndSnapshotsKeepTheValuesOfTheirVersion() throws Exception {
+        // GIVEN
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        bookService.addBook("123", "Aprendiendo Java", "Cesar Diaz");
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+        var version = userService.getUsersSnapshot().getVersion();
+        loanService.addLoan("1", "123");
+        var loans = loanService.getLoansSnapshot();
+
+        // WHEN
+        userService.updateUserEmail("1", "mesa@email.com");
+        userService.updateUserEmail("1", "anderson.mesa@email.com");
+        loanService.returnBook("1", "123");
+
+        // THEN
+        var changes = userService.getUserChangesSince(version);
+        assertEquals("mesa@email.com", changes.get(0).getValue().getEmail());
+        assertEquals("anderson.mesa@email.com", changes.get(1).getValue().getEmail());
+        assertEquals(LoanState.STARTED, loans.getItems().get(0).getState());
+        assertEquals(LoanState.FINISHED, loanService.getLoansSnapshot().getItems().get(0).getState());
+    }
+
+    @Test
+    void testSnapshotPlusChangesRebuildsCurrentState() throws Exception {
+        // GIVEN
+        var bookService = new BookService();
+        var userService = new UserService();
+        var loanService = new LoanService(bookService, userService);
+        for (int i = 0; i < 32; i++) {
+            bookService.addBook("isbn-" + i, "Libro " + i, "Autor");
+        }
+        userService.addUser("1", "Anderson Mesa", "anderson@email.com");
+
+        var running = new AtomicBoolean(true);
+        var executor = Executors.newSingleThreadExecutor();
+        var writer = executor.submit(() -> {
+            var n = 0;
+            while (running.get()) {
+                var isbn = "isbn-" + (n++ % 32);
+                try {
+                    loanService.addLoan("1", isbn);
+                    loanService.returnBook("1", isbn);
+                } catch (NotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return null;
+        });
+
+        // WHEN - un lector recorre copias mientras se presta y devuelve
+        var reads = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            var snapshot = loanService.getLoansSnapshot();
+            var count = 0;
+            for (var loan : snapshot.getItems()) {
+                count += loan.getBook() != null ? 1 : 0;
+            }
+            reads.add(count);
+        }
+        running.set(false);
+        writer.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // THEN
+        var snapshot = loanService.getLoansSnapshot();
+        var changes = loanService.getLoanChangesSince(snapshot.getVersion());
+        assertTrue(changes.isEmpty());
+        assertEquals(snapshot.getItems().size(), loanService.getLoans().size());
+        assertTrue(reads.stream().allMatch(count -> count <= snapshot.getItems().size()));
+    }
+}